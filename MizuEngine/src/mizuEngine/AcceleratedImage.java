@@ -0,0 +1,148 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: AcceleratedImage                                                |
+| Date: 10/18/2026                                                      |
+| Description: This class is a sprite kept in video memory as a         |
+| translucent VolatileImage. The decoded image is kept as well, so when |
+| the VolatileImage's contents are lost, or the display mode changes,   |
+| it is drawn again from the decoded image. MizuEngine validates every  |
+| AcceleratedImage loaded through ImageManager before each frame.       |
+|                                                                       |
+| Notes: Until it is validated, or when headless, the decoded image is  |
+| drawn instead.                                                        |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.awt.Image;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.AlphaComposite;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+public class AcceleratedImage
+{
+	//Decoded image the VolatileImage is drawn from.
+	private final BufferedImage source;
+	//Copy in video memory.
+	private VolatileImage volatileImage;
+	//True when the VolatileImage must be made again, like after a display mode change.
+	private volatile boolean invalid;
+
+	//AcceleratedImage constructor.
+	public AcceleratedImage (BufferedImage source)
+	{
+		this.source = source;
+		volatileImage = null;
+		invalid = true;
+	}
+
+	//Makes sure the VolatileImage is usable with gc. Returns true if it had to be drawn again.
+	public boolean validate (GraphicsConfiguration gc)
+	{
+		//Nothing to be compatible with.
+		if (gc == null)
+			return false;
+
+		try
+		{
+			if (invalid || volatileImage == null)
+			{
+				//Made again from scratch.
+				invalid = false;
+				flush();
+				volatileImage = create(gc);
+			}
+			else if (volatileImage.validate(gc) == VolatileImage.IMAGE_OK)
+			{
+				return false;
+			}
+			restore(gc);
+		}
+		catch (Exception e)
+		{
+			//Falls back to the decoded image.
+			flush();
+		}
+		return true;
+	}
+
+	//Makes a new VolatileImage for gc, the size of source.
+	private VolatileImage create (GraphicsConfiguration gc)
+	{
+		return gc.createCompatibleVolatileImage(source.getWidth(), source.getHeight(), Transparency.TRANSLUCENT);
+	}
+
+	//Draws source into the VolatileImage until the copy survives.
+	private void restore (GraphicsConfiguration gc)
+	{
+		do
+		{
+			//Made again if the display changed since it was last validated.
+			if (volatileImage.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE)
+			{
+				volatileImage.flush();
+				volatileImage = create(gc);
+			}
+			Graphics2D g2d = volatileImage.createGraphics();
+			//Replaces whatever was left behind, alpha included.
+			g2d.setComposite(AlphaComposite.Src);
+			g2d.drawImage(source, 0, 0, null);
+			g2d.dispose();
+		}
+		//Lost again while it was being drawn.
+		while (volatileImage.contentsLost());
+	}
+
+	//Makes the VolatileImage again on the next validate.
+	public void invalidate ()
+	{
+		invalid = true;
+	}
+
+	//Draws the image with its top left corner at x, y.
+	public void draw (Graphics2D g2d, int x, int y)
+	{
+		g2d.drawImage(getImage(), x, y, null);
+	}
+
+	//Returns the image to draw this frame.
+	public Image getImage ()
+	{
+		VolatileImage image = volatileImage;
+		if (image == null || image.contentsLost())
+		{
+			return source;
+		}
+		return image;
+	}
+
+	//Frees the VolatileImage. It is made again on the next validate.
+	public void flush ()
+	{
+		if (volatileImage != null)
+		{
+			volatileImage.flush();
+			volatileImage = null;
+		}
+	}
+
+	//Getters.
+	public BufferedImage getSource ()
+	{
+		return source;
+	}
+	public int getWidth ()
+	{
+		return source.getWidth();
+	}
+	public int getHeight ()
+	{
+		return source.getHeight();
+	}
+}
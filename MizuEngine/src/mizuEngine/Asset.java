@@ -0,0 +1,78 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: Asset                                                           |
+| Date: 10/18/2026                                                      |
+| Description: This class is a reference counted handle to a loaded     |
+| image or sound. While a handle is held, its manager keeps the asset   |
+| loaded. Scenes acquire handles in load() and SceneManager releases    |
+| them after the next Scene has loaded, so anything both Scenes use     |
+| stays loaded in between.                                              |
+=========================================================================
+ */
+package mizuEngine;
+
+public abstract class Asset<T>
+{
+	//Path the asset was loaded from.
+	private final String path;
+	//The loaded asset.
+	private T value;
+	//True while this handle counts as a reference.
+	private boolean held;
+
+	//Asset constructor.
+	protected Asset (String path)
+	{
+		this.path = path;
+		value = null;
+		held = false;
+	}
+
+	//Takes a reference, loading the asset if it is not loaded.
+	protected final void acquire ()
+	{
+		if (!held)
+		{
+			value = retain(path);
+			held = true;
+		}
+	}
+
+	//Gives up the reference. Releasing twice does nothing. get() returns null after.
+	public final void release ()
+	{
+		if (held)
+		{
+			held = false;
+			//The manager may close or evict it now.
+			value = null;
+			drop(path);
+		}
+	}
+
+	//Manager takes a reference to path and returns what is loaded there.
+	protected abstract T retain (String path);
+	//Manager lets a reference to path go.
+	protected abstract void drop (String path);
+
+	//Returns the asset, or null once released.
+	public T get ()
+	{
+		return value;
+	}
+
+	//Returns the path.
+	public String getPath ()
+	{
+		return path;
+	}
+
+	//Returns true while this handle is held.
+	public boolean isHeld ()
+	{
+		return held;
+	}
+}
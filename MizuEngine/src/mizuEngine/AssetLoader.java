@@ -0,0 +1,267 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: AssetLoader                                                     |
+| Date: 10/18/2026                                                      |
+| Description: This class loads the images and sounds listed in a       |
+| manifest on a pool of worker threads, so the gameloop keeps running   |
+| while a Scene's assets are decoded. Progress can be read every frame. |
+| Images go through ImageManager's own load, so one already cached or   |
+| being loaded elsewhere is not decoded again. Sounds are published to  |
+| AudioManager together once every asset has finished.                  |
+|                                                                       |
+| Manifest format: a .txt file under resources/ with one asset per      |
+| line, either "image path" or "sound path". Paths are the same ones    |
+| passed to ImageManager.loadImage and AudioManager.load. Blank lines   |
+| and lines starting with # are skipped.                                |
+=========================================================================
+ */
+package mizuEngine;
+
+import javax.sound.sampled.Clip;
+
+import java.util.Map;
+import java.util.List;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AssetLoader
+{
+	//Worker threads shared by every AssetLoader.
+	private static ExecutorService workers;
+
+	//Decoded sounds waiting to be published.
+	private final Map<String, Clip> clips;
+	private final Map<String, PcmSound> sounds;
+
+	//Progress.
+	private final int total;
+	private final AtomicInteger finished;
+	private final AtomicInteger failed;
+	private volatile boolean done;
+
+	//AssetLoader constructor.
+	private AssetLoader (int total)
+	{
+		this.total = total;
+		clips = new HashMap<String, Clip>();
+		sounds = new HashMap<String, PcmSound>();
+		finished = new AtomicInteger(0);
+		failed = new AtomicInteger(0);
+		done = false;
+	}
+
+	//Starts loading every asset listed in the manifest at resources/manifestPath.
+	public static AssetLoader load (String manifestPath)
+	{
+		List<String> imagePaths = new ArrayList<String>();
+		List<String> soundPaths = new ArrayList<String>();
+
+		//Reads the manifest.
+		List<String> lines = FileManager.readLines(manifestPath);
+		if (lines != null)
+		{
+			for (String line : lines)
+			{
+				line = line.trim();
+				if (line.length() == 0 || line.startsWith("#"))
+					continue;
+
+				if (line.startsWith("image "))
+				{
+					imagePaths.add(line.substring(6).trim());
+				}
+				else if (line.startsWith("sound "))
+				{
+					soundPaths.add(line.substring(6).trim());
+				}
+				else
+				{
+					System.out.println("Manifest \"" + manifestPath + "\" has an unknown line: " + line);
+				}
+			}
+		}
+
+		AssetLoader assetLoader = new AssetLoader(imagePaths.size() + soundPaths.size());
+
+		//Nothing to wait for.
+		if (assetLoader.total == 0)
+		{
+			assetLoader.done = true;
+			return assetLoader;
+		}
+
+		//Hands every asset to the workers.
+		ExecutorService executor = getWorkers();
+		for (String imagePath : imagePaths)
+		{
+			executor.execute(assetLoader.new ImageTask(imagePath));
+		}
+		for (String soundPath : soundPaths)
+		{
+			executor.execute(assetLoader.new SoundTask(soundPath));
+		}
+
+		return assetLoader;
+	}
+
+	//Returns the worker pool, one thread per processor.
+	protected static synchronized ExecutorService getWorkers ()
+	{
+		if (workers == null)
+		{
+			workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory()
+			{
+				//Numbers the workers.
+				private final AtomicInteger count = new AtomicInteger(0);
+
+				public Thread newThread (Runnable runnable)
+				{
+					//Workers never keep the game from shutting down.
+					Thread thread = new Thread(runnable, "MizuEngine Loader " + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return workers;
+	}
+
+	//Counts an asset as finished and publishes everything after the last one.
+	private void finish ()
+	{
+		if (finished.incrementAndGet() == total)
+		{
+			synchronized (this)
+			{
+				ImageManager.checkPreloaded();
+				AudioManager.publish(clips);
+				AudioManager.publishSounds(sounds);
+			}
+			done = true;
+		}
+	}
+
+	//Returns progress from 0 to 1.
+	public float getProgress ()
+	{
+		return total == 0 ? 1f : finished.get() / (float)total;
+	}
+
+	//Returns true once every asset is loaded and published.
+	public boolean isDone ()
+	{
+		return done;
+	}
+
+	//Returns how many assets are listed.
+	public int getTotal ()
+	{
+		return total;
+	}
+
+	//Returns how many assets have finished.
+	public int getFinished ()
+	{
+		return finished.get();
+	}
+
+	//Returns how many assets could not be loaded. They count as finished.
+	public int getFailed ()
+	{
+		return failed.get();
+	}
+
+	//Loads one image.
+	private class ImageTask implements Runnable
+	{
+		private final String imagePath;
+
+		private ImageTask (String imagePath)
+		{
+			this.imagePath = imagePath;
+		}
+
+		public void run ()
+		{
+			try
+			{
+				//Joins any load of the same image already running.
+				if (ImageManager.preload(imagePath) == null)
+				{
+					//ImageManager has already told the console.
+					failed.incrementAndGet();
+				}
+			}
+			catch (Exception e)
+			{
+				System.out.println("Image at \"" + imagePath + "\" could not be loaded: " + e);
+				failed.incrementAndGet();
+			}
+			finally
+			{
+				finish();
+			}
+		}
+	}
+
+	//Decodes one sound.
+	private class SoundTask implements Runnable
+	{
+		private final String soundPath;
+
+		private SoundTask (String soundPath)
+		{
+			this.soundPath = soundPath;
+		}
+
+		public void run ()
+		{
+			try
+			{
+				//Decodes for whichever way sounds are played.
+				if (AudioManager.getMixerMode())
+				{
+					PcmSound sound = AudioManager.readSound(soundPath);
+					if (sound == null)
+					{
+						failed.incrementAndGet();
+						return;
+					}
+					synchronized (AssetLoader.this)
+					{
+						sounds.put(soundPath, sound);
+					}
+				}
+				else
+				{
+					Clip clip = AudioManager.readClip(soundPath);
+					if (clip == null)
+					{
+						failed.incrementAndGet();
+						return;
+					}
+					synchronized (AssetLoader.this)
+					{
+						clips.put(soundPath, clip);
+					}
+				}
+			}
+			catch (Exception e)
+			{
+				System.out.println("Sound at \"" + soundPath + "\" could not be loaded: " + e);
+				failed.incrementAndGet();
+			}
+			finally
+			{
+				finish();
+			}
+		}
+	}
+}
@@ -0,0 +1,200 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: AssetPack                                                       |
+| Date: 10/18/2026                                                      |
+| Description: This class reads a pack of assets made by AssetPacker.   |
+| The whole pack is memory mapped, and an asset is found by binary      |
+| searching its sorted index, so opening one costs no file open, no     |
+| unzipping and no copy. Mounted packs are searched before the          |
+| classpath by FileManager.openResource.                                |
+|                                                                       |
+| Format: "MZPK", int version, int entry count, then for each entry     |
+| sorted by name: short name length, UTF-8 name, long offset, int       |
+| length. Every entry starts on a 4096 byte page. Big endian.           |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class AssetPack
+{
+	//Identifies a pack.
+	protected static final byte[] MAGIC = {'M', 'Z', 'P', 'K'};
+	//Version this class reads.
+	protected static final int VERSION = 1;
+	//Entries start on multiples of this.
+	protected static final int ALIGNMENT = 4096;
+
+	//Mounted packs, newest first.
+	private static final List<AssetPack> mounted = new CopyOnWriteArrayList<AssetPack>();
+
+	//The mapped file.
+	private final MappedByteBuffer buffer;
+	//Index, sorted by name.
+	private final String[] names;
+	private final long[] offsets;
+	private final int[] lengths;
+
+	//AssetPack constructor.
+	private AssetPack (MappedByteBuffer buffer, String[] names, long[] offsets, int[] lengths)
+	{
+		this.buffer = buffer;
+		this.names = names;
+		this.offsets = offsets;
+		this.lengths = lengths;
+	}
+
+	//Opens the pack at file. Returns null if it could not be read.
+	public static AssetPack open (File file)
+	{
+		RandomAccessFile randomAccessFile = null;
+		try
+		{
+			randomAccessFile = new RandomAccessFile(file, "r");
+			FileChannel channel = randomAccessFile.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+			{
+				System.out.println("Asset pack \"" + file + "\" is larger than 2 GB.");
+				return null;
+			}
+
+			//The mapping stays valid after the file is closed.
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			//Header.
+			byte[] magic = new byte[MAGIC.length];
+			buffer.get(magic);
+			if (!Arrays.equals(magic, MAGIC))
+			{
+				System.out.println("File \"" + file + "\" is not an asset pack.");
+				return null;
+			}
+			int version = buffer.getInt();
+			if (version != VERSION)
+			{
+				System.out.println("Asset pack \"" + file + "\" is version " + version + ", expected " + VERSION + ".");
+				return null;
+			}
+
+			//Index.
+			int count = buffer.getInt();
+			String[] names = new String[count];
+			long[] offsets = new long[count];
+			int[] lengths = new int[count];
+			for (int i = 0; i < count; i++)
+			{
+				byte[] name = new byte[buffer.getShort() & 0xFFFF];
+				buffer.get(name);
+				names[i] = new String(name, "UTF-8");
+				offsets[i] = buffer.getLong();
+				lengths[i] = buffer.getInt();
+
+				if (offsets[i] < 0 || offsets[i] + lengths[i] > buffer.capacity())
+				{
+					System.out.println("Asset pack \"" + file + "\" has a bad entry: " + names[i]);
+					return null;
+				}
+			}
+
+			return new AssetPack(buffer, names, offsets, lengths);
+		}
+		catch (Exception e)
+		{
+			System.out.println("Asset pack \"" + file + "\" could not be opened.");
+			return null;
+		}
+		finally
+		{
+			try {if (randomAccessFile != null) randomAccessFile.close();}
+			catch (IOException e) {}
+		}
+	}
+
+	//Opens and mounts the pack at path. Later mounts are searched first.
+	public static boolean mount (String path)
+	{
+		AssetPack assetPack = open(new File(path));
+		if (assetPack == null)
+		{
+			return false;
+		}
+		mounted.add(0, assetPack);
+		return true;
+	}
+
+	//Unmounts every pack.
+	public static void unmountAll ()
+	{
+		mounted.clear();
+	}
+
+	//Returns the asset at name from the mounted packs, or null if none have it.
+	public static ByteBuffer findMounted (String name)
+	{
+		for (AssetPack assetPack : mounted)
+		{
+			ByteBuffer asset = assetPack.find(name);
+			if (asset != null)
+			{
+				return asset;
+			}
+		}
+		return null;
+	}
+
+	//Returns the asset at name, or null if the pack does not have it.
+	//The buffer shares the mapping, so nothing is copied.
+	public ByteBuffer find (String name)
+	{
+		int i = Arrays.binarySearch(names, name);
+		if (i < 0)
+		{
+			return null;
+		}
+
+		ByteBuffer asset = buffer.duplicate();
+		asset.limit((int)offsets[i] + lengths[i]);
+		asset.position((int)offsets[i]);
+		return asset.slice();
+	}
+
+	//Returns true if the pack has name.
+	public boolean contains (String name)
+	{
+		return Arrays.binarySearch(names, name) >= 0;
+	}
+
+	//Returns how many assets are in the pack.
+	public int getCount ()
+	{
+		return names.length;
+	}
+
+	//Returns the UTF-8 bytes of name.
+	protected static byte[] encode (String name)
+	{
+		try
+		{
+			return name.getBytes("UTF-8");
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			//Every JVM has UTF-8.
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: AssetPacker                                                     |
+| Date: 10/18/2026                                                      |
+| Description: This is the build time tool that writes an AssetPack.    |
+| Every file under the resource directory is added, named by its path   |
+| relative to it with / separators, like "images/mizuEngine/logo.png".  |
+| Hidden files are left out.                                            |
+|                                                                       |
+| Usage: java mizuEngine.AssetPacker <resource directory> <pack file>   |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.FileInputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+
+public class AssetPacker
+{
+	//Writes the pack.
+	public static void main (String[] args)
+	{
+		if (args.length != 2)
+		{
+			System.out.println("Usage: java mizuEngine.AssetPacker <resource directory> <pack file>");
+			return;
+		}
+
+		try
+		{
+			int count = pack(new File(args[0]), new File(args[1]));
+			System.out.println("Packed " + count + " assets into \"" + args[1] + "\".");
+		}
+		catch (IOException e)
+		{
+			System.out.println("Asset pack \"" + args[1] + "\" could not be written: " + e.getMessage());
+		}
+	}
+
+	//Packs every file under directory into pack. Returns how many were packed.
+	public static int pack (File directory, File pack) throws IOException
+	{
+		//Finds every file, sorted the way AssetPack searches.
+		List<String> names = new ArrayList<String>();
+		findFiles(directory, "", names);
+		Collections.sort(names);
+
+		//Index size decides where the first entry goes.
+		long indexEnd = AssetPack.MAGIC.length + 4 + 4;
+		for (String name : names)
+		{
+			indexEnd += 2 + AssetPack.encode(name).length + 8 + 4;
+		}
+
+		//Lays the entries out on page boundaries.
+		long[] offsets = new long[names.size()];
+		long[] lengths = new long[names.size()];
+		long offset = align(indexEnd);
+		for (int i = 0; i < names.size(); i++)
+		{
+			lengths[i] = new File(directory, names.get(i)).length();
+			if (lengths[i] > Integer.MAX_VALUE)
+			{
+				throw new IOException(names.get(i) + " is larger than 2 GB.");
+			}
+			offsets[i] = offset;
+			offset = align(offset + lengths[i]);
+		}
+
+		RandomAccessFile randomAccessFile = new RandomAccessFile(pack, "rw");
+		try
+		{
+			//Sized up front, since transferFrom writes nothing past the end of a file.
+			randomAccessFile.setLength(0);
+			randomAccessFile.setLength(Math.max(offset, indexEnd));
+			FileChannel out = randomAccessFile.getChannel();
+
+			//Header and index.
+			ByteBuffer index = ByteBuffer.allocate((int)indexEnd);
+			index.put(AssetPack.MAGIC);
+			index.putInt(AssetPack.VERSION);
+			index.putInt(names.size());
+			for (int i = 0; i < names.size(); i++)
+			{
+				byte[] name = AssetPack.encode(names.get(i));
+				if (name.length > 0xFFFF)
+				{
+					throw new IOException(names.get(i) + " has too long a name.");
+				}
+				index.putShort((short)name.length);
+				index.put(name);
+				index.putLong(offsets[i]);
+				index.putInt((int)lengths[i]);
+			}
+			index.flip();
+			while (index.hasRemaining())
+			{
+				out.write(index);
+			}
+
+			//Entries, copied file to file.
+			for (int i = 0; i < names.size(); i++)
+			{
+				FileInputStream in = new FileInputStream(new File(directory, names.get(i)));
+				try
+				{
+					FileChannel channel = in.getChannel();
+					long copied = 0;
+					while (copied < lengths[i])
+					{
+						long transferred = out.transferFrom(channel, offsets[i] + copied, lengths[i] - copied);
+						if (transferred <= 0)
+						{
+							throw new IOException(names.get(i) + " changed while being packed.");
+						}
+						copied += transferred;
+					}
+				}
+				finally
+				{
+					in.close();
+				}
+			}
+		}
+		finally
+		{
+			randomAccessFile.close();
+		}
+
+		return names.size();
+	}
+
+	//Adds the path of every file under directory, prefixed with prefix.
+	private static void findFiles (File directory, String prefix, List<String> names) throws IOException
+	{
+		File[] files = directory.listFiles();
+		if (files == null)
+		{
+			throw new IOException(directory + " is not a directory.");
+		}
+
+		for (File file : files)
+		{
+			//Skips hidden files, like .DS_Store.
+			if (file.getName().startsWith("."))
+			{
+				continue;
+			}
+			
+			if (file.isDirectory())
+			{
+				findFiles(file, prefix + file.getName() + "/", names);
+			}
+			else
+			{
+				names.add(prefix + file.getName());
+			}
+		}
+	}
+
+	//Rounds offset up to the next page.
+	private static long align (long offset)
+	{
+		return (offset + AssetPack.ALIGNMENT - 1) / AssetPack.ALIGNMENT * AssetPack.ALIGNMENT;
+	}
+}
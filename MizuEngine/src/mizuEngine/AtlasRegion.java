@@ -0,0 +1,65 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: AtlasRegion                                                     |
+| Date: 10/18/2026                                                      |
+| Description: This class is a handle to an image packed into a         |
+| TextureAtlas sheet. It remembers which sheet and where on it, and     |
+| draws with a single source rectangle drawImage call.                  |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.awt.Image;
+import java.awt.Graphics2D;
+
+public class AtlasRegion
+{
+	//Sheet the image was packed into.
+	private final Image sheet;
+	//Where on the sheet.
+	private final int x;
+	private final int y;
+	private final int width;
+	private final int height;
+
+	//AtlasRegion constructor.
+	public AtlasRegion (Image sheet, int x, int y, int width, int height)
+	{
+		this.sheet = sheet;
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+	}
+
+	//Draws the region with its top left corner at dx, dy.
+	public void draw (Graphics2D g2d, int dx, int dy)
+	{
+		g2d.drawImage(sheet, dx, dy, dx + width, dy + height, x, y, x + width, y + height, null);
+	}
+
+	//Getters.
+	public Image getSheet ()
+	{
+		return sheet;
+	}
+	public int getX ()
+	{
+		return x;
+	}
+	public int getY ()
+	{
+		return y;
+	}
+	public int getWidth ()
+	{
+		return width;
+	}
+	public int getHeight ()
+	{
+		return height;
+	}
+}
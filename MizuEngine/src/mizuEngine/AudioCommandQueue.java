@@ -0,0 +1,246 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: AudioCommandQueue                                               |
+| Date: 10/18/2026                                                      |
+| Description: This class carries audio commands, like play and stop,   |
+| from the game thread to an audio thread that runs them. Clip start    |
+| and stop, loading a sound, and waiting on the mixer can all block for |
+| milliseconds, so the game thread only writes a command into a ring    |
+| and moves on.                                                         |
+|                                                                       |
+| Notes: The ring is a fixed set of arrays, so sending never allocates. |
+| Only the sender writes tail and only the audio thread writes head.    |
+| Senders share sendLock, which the audio thread never takes. A command |
+| sent while the ring is full is dropped and counted. A sound that is   |
+| not loaded yet is loaded on AssetLoader's workers and played once it  |
+| is, so the audio thread never waits on a decode.                      |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class AudioCommandQueue
+{
+	//Commands.
+	protected static final int PLAY = 0;
+	protected static final int STOP = 1;
+	protected static final int PAUSE = 2;
+	protected static final int RESUME = 3;
+	protected static final int STOP_ALL = 4;
+	protected static final int STOP_INSTANCE = 5;
+	protected static final int SET_VOLUME = 6;
+	protected static final int SET_PAN = 7;
+	protected static final int SET_MIXER_MODE = 8;
+	protected static final int PLAY_MUSIC = 9;
+	protected static final int STOP_MUSIC = 10;
+	protected static final int PAUSE_MUSIC = 11;
+	protected static final int RESUME_MUSIC = 12;
+	protected static final int SET_MUSIC_VOLUME = 13;
+	protected static final int LOADED = 14;
+	protected static final int UNLOAD = 15;
+
+	//Commands the ring holds, a power of two.
+	public static final int CAPACITY = 256;
+	private static final int MASK = CAPACITY - 1;
+	//Longest the audio thread sleeps before looking again.
+	private static final long PARK_NANOS = 2000000L;
+
+	//Command arrays, one slot per command.
+	private static final int[] ops = new int[CAPACITY];
+	private static final String[] paths = new String[CAPACITY];
+	private static final long[] ids = new long[CAPACITY];
+	private static final float[] volumes = new float[CAPACITY];
+	private static final float[] pans = new float[CAPACITY];
+	private static final boolean[] loops = new boolean[CAPACITY];
+
+	//Commands sent and run since the start.
+	private static volatile long tail = 0;
+	private static volatile long head = 0;
+	//Held by senders only, and by stop so nothing is sent after the last drain.
+	private static final Object sendLock = new Object();
+	//Held while a command runs, so one run by its sender never overlaps the audio thread's.
+	private static final Object runLock = new Object();
+
+	//Stats.
+	private static volatile long dropped = 0;
+	private static volatile int maxDepth = 0;
+
+	//The audio thread.
+	private static Thread audioThread;
+	private static volatile boolean running;
+	private static volatile boolean sleeping;
+
+	//Starts the audio thread.
+	public static synchronized void start ()
+	{
+		if (running)
+			return;
+
+		running = true;
+		audioThread = new Thread(new Runnable()
+		{
+			public void run ()
+			{
+				runLoop();
+			}
+		}, "MizuEngine Audio Commands");
+		//Audio thread never keeps the game from shutting down.
+		audioThread.setDaemon(true);
+		audioThread.setPriority(Thread.MAX_PRIORITY);
+		audioThread.start();
+	}
+
+	//Runs every command already sent, then stops the audio thread.
+	public static synchronized void stop ()
+	{
+		if (!running)
+			return;
+
+		synchronized (sendLock)
+		{
+			running = false;
+		}
+		LockSupport.unpark(audioThread);
+		try
+		{
+			audioThread.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		audioThread = null;
+	}
+
+	//Returns true while the audio thread is running.
+	public static boolean isRunning ()
+	{
+		return running;
+	}
+
+	//Sends a command. Returns false if the ring was full and it was dropped, or if the
+	//audio thread is not running, in which case the sender should run it with runHere.
+	protected static boolean send (int op, String path, long id, float volume, float pan, boolean loop)
+	{
+		synchronized (sendLock)
+		{
+			if (!running)
+			{
+				return false;
+			}
+			
+			long t = tail;
+			int depth = (int)(t - head);
+			if (depth >= CAPACITY)
+			{
+				dropped++;
+				return false;
+			}
+
+			int i = (int)(t & MASK);
+			ops[i] = op;
+			paths[i] = path;
+			ids[i] = id;
+			volumes[i] = volume;
+			pans[i] = pan;
+			loops[i] = loop;
+			//Publishes the slot.
+			tail = t + 1;
+
+			if (depth + 1 > maxDepth)
+			{
+				maxDepth = depth + 1;
+			}
+		}
+
+		//Wakes the audio thread only if it is asleep.
+		if (sleeping)
+		{
+			LockSupport.unpark(audioThread);
+		}
+		return true;
+	}
+
+	//Runs commands as they arrive until stopped.
+	private static void runLoop ()
+	{
+		while (true)
+		{
+			boolean wasRunning = running;
+			drain();
+
+			if (!wasRunning)
+				break;
+
+			//Sleeps until woken, checking once more so no command waits for the timeout.
+			sleeping = true;
+			if (head == tail && running)
+			{
+				LockSupport.parkNanos(PARK_NANOS);
+			}
+			sleeping = false;
+		}
+	}
+
+	//Runs every command sent so far.
+	private static void drain ()
+	{
+		long h = head;
+		long t = tail;
+		while (h != t)
+		{
+			int i = (int)(h & MASK);
+			String path = paths[i];
+			//Lets go of the path so the ring holds nothing alive.
+			paths[i] = null;
+
+			runHere(ops[i], path, ids[i], volumes[i], pans[i], loops[i]);
+
+			h++;
+			//Frees the slot.
+			head = h;
+			if (h == t)
+			{
+				t = tail;
+			}
+		}
+	}
+
+	//Runs a command on this thread, never at the same time as another.
+	protected static void runHere (int op, String path, long id, float volume, float pan, boolean loop)
+	{
+		synchronized (runLock)
+		{
+			try
+			{
+				AudioManager.execute(op, path, id, volume, pan, loop);
+			}
+			catch (RuntimeException e)
+			{
+				System.out.println("Audio command for \"" + path + "\" failed: " + e);
+			}
+		}
+	}
+
+	//Returns how many commands are waiting.
+	public static int getDepth ()
+	{
+		return (int)(tail - head);
+	}
+
+	//Returns the most commands that have waited at once.
+	public static int getMaxDepth ()
+	{
+		return maxDepth;
+	}
+
+	//Returns how many commands were dropped because the ring was full.
+	public static long getDropped ()
+	{
+		return dropped;
+	}
+}
@@ -6,7 +6,7 @@
 | Name: AudioManager                                                    |
 | Date: 09/03/2011                                                      |
 | Description: This class is responsible for locating, loading, storing,|
-| and playing audio files. It is built with a Hashtable to avoid 		|
+| and playing audio files. It is built with a map to avoid       		|
 | loading the same Audio twice. The way this class is designed, makes	|
 | it so that only one AudioManager is created.							|
 =========================================================================
@@ -15,24 +15,72 @@ package mizuEngine;
 
 import javax.sound.sampled.Clip;
 import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.UnsupportedAudioFileException;
 
-import java.applet.Applet;
-import java.applet.AudioClip;
-
-import java.io.File;
-import java.net.URL;
-import java.util.Hashtable;
-import java.util.Enumeration;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.LockSupport;
 
 
 public class AudioManager
 {
     //Allows only one AudioManager
     private static AudioManager audioManager;
-    //Hashtable keeps all loaded audio paired with a path key.
-    private static Hashtable<String, Clip> clipHashtable;
+    //Map keeps all loaded audio paired with a path key. Read without locking.
+    private static ConcurrentHashMap<String, Clip> clipMap;
+    //Map keeps clips being opened, so every thread asking for one waits on the same load.
+    private static ConcurrentHashMap<String, FutureTask<Clip>> loadingMap;
+    //Map keeps how many Assets hold each clip. Hold writeLock.
+    private static Map<String, Integer> referenceMap;
+    //Held while counting references or removing clips.
+    private static final Object writeLock = new Object();
+    
+    //Map keeps sounds decoded for AudioMixer paired with a path key.
+    private static ConcurrentHashMap<String, PcmSound> soundMap;
+    //Map keeps sounds being decoded.
+    private static ConcurrentHashMap<String, FutureTask<PcmSound>> soundLoadingMap;
+    //True when sounds play through AudioMixer instead of Clips.
+    private static volatile boolean mixerMode;
+    //True when the audio thread sends sounds to AudioMixer. Changed in order with the other commands.
+    private static boolean mixerVoices;
+    //Map keeps the most voices each sound may play at once in mixer mode.
+    private static ConcurrentHashMap<String, Integer> maxVoicesMap;
+    //Plays waiting for their sound to load. Audio thread only.
+    private static final List<PendingPlay> pendingPlays = new ArrayList<PendingPlay>();
+    //Most plays that wait at once.
+    private static final int MAX_PENDING = 64;
+    //Music streaming now, or null. Written on the audio thread.
+    private static volatile MusicStream music;
+    
+    //Loads clips.
+    private static final Loader<Clip> CLIP_LOADER = new Loader<Clip>()
+    {
+        protected Clip read (String clipPath)
+        {
+            return readClip(clipPath);
+        }
+        
+        protected void discard (Clip clip)
+        {
+            clip.close();
+        }
+    };
+    //Loads sounds for AudioMixer.
+    private static final Loader<PcmSound> SOUND_LOADER = new Loader<PcmSound>()
+    {
+        protected PcmSound read (String clipPath)
+        {
+            return readSound(clipPath);
+        }
+    };
     
     //Returns the audioManager.
     public static AudioManager getAudioManager ()
@@ -42,70 +90,543 @@ public class AudioManager
         {
             //Makes a single AudioManager.
             audioManager = new AudioManager();
-            //Makes a single Hashtable.
-            clipHashtable = new Hashtable<String, Clip>();
+            //Makes a single map.
+            clipMap = new ConcurrentHashMap<String, Clip>();
+            loadingMap = new ConcurrentHashMap<String, FutureTask<Clip>>();
+            referenceMap = new HashMap<String, Integer>();
+            soundMap = new ConcurrentHashMap<String, PcmSound>();
+            soundLoadingMap = new ConcurrentHashMap<String, FutureTask<PcmSound>>();
+            mixerMode = false;
+            mixerVoices = false;
+            maxVoicesMap = new ConcurrentHashMap<String, Integer>();
+            //Starts the thread audio commands run on.
+            AudioCommandQueue.start();
         }
         //Returns the audioManager.
         return audioManager;
     }
     
     //Plays once.
-    public static void play (String clipPath)
+    public static long play (String clipPath)
     {
-        play(clipPath, false);
+        return play(clipPath, false);
     }
     
     //Plays or loops an audio clip located at clipPath.
-    public static void play (String clipPath, boolean loop)
+    //In mixer mode every call plays another instance and returns its id, otherwise -1.
+    public static long play (String clipPath, boolean loop)
     {
-        //Hashtable checks to see if Clip has already been loaded.
-        if (clipHashtable.containsKey(clipPath))
+        return play(clipPath, 1f, 0f, loop);
+    }
+    
+    //Plays or loops the sound at clipPath with volume from 0 to 1 and pan from -1 (left) to 1 (right).
+    //Returns the instance's id for stopInstance, setVolume and setPan, or -1 if not in mixer mode.
+    //Like every command, it is sent to the audio thread and returns at once.
+    public static long play (String clipPath, float volume, float pan, boolean loop)
+    {
+        //Mixer ids are handed out now, before the voice starts.
+        long id = mixerMode ? AudioMixer.reserveId() : -1;
+        if (!send(AudioCommandQueue.PLAY, clipPath, id, volume, pan, loop))
         {
-            //Try to play clip from clipHashtable.
-            tryToPlay((Clip)clipHashtable.get(clipPath), loop);
+            return -1;
         }
-        else
+        return id;
+    }
+    
+    //Sets the most instances of clipPath that play at once in mixer mode, or 0 for any number.
+    //Playing one more cuts off the oldest.
+    public static void setMaxVoices (String clipPath, int maxVoices)
+    {
+        maxVoicesMap.put(clipPath, Math.max(0, maxVoices));
+    }
+    
+    //Stops one instance returned by play.
+    public static void stopInstance (long id)
+    {
+        send(AudioCommandQueue.STOP_INSTANCE, null, id, 0f, 0f, false);
+    }
+    
+    //Sets one instance's volume from 0 to 1.
+    public static void setVolume (long id, float volume)
+    {
+        send(AudioCommandQueue.SET_VOLUME, null, id, volume, 0f, false);
+    }
+    
+    //Sets one instance's pan from -1 (left) to 1 (right).
+    public static void setPan (long id, float pan)
+    {
+        send(AudioCommandQueue.SET_PAN, null, id, 0f, pan, false);
+    }
+    
+    //Sends a command to the audio thread, or runs it here if there is none. Returns false if it was dropped.
+    private static boolean send (int op, String clipPath, long id, float volume, float pan, boolean loop)
+    {
+        if (AudioCommandQueue.send(op, clipPath, id, volume, pan, loop))
+        {
+            return true;
+        }
+        //Checked after sending, so a command sent while the audio thread stops still runs.
+        if (!AudioCommandQueue.isRunning())
+        {
+            AudioCommandQueue.runHere(op, clipPath, id, volume, pan, loop);
+            return true;
+        }
+        return false;
+    }
+    
+    //Runs a command. Called on the audio thread.
+    protected static void execute (int op, String clipPath, long id, float volume, float pan, boolean loop)
+    {
+        switch (op)
         {
-            //Tries to load clip. 
-            load(clipPath);
-            //Plays audio clip.
-            tryToPlay((Clip)clipHashtable.get(clipPath), loop);
+            case AudioCommandQueue.PLAY: playNow(clipPath, volume, pan, loop, id); break;
+            case AudioCommandQueue.LOADED: playPending(clipPath, loop); break;
+            case AudioCommandQueue.UNLOAD: unloadNow(clipPath, loop); break;
+            case AudioCommandQueue.STOP: stopNow(clipPath); break;
+            case AudioCommandQueue.PAUSE: pauseNow(clipPath); break;
+            case AudioCommandQueue.RESUME: resumeNow(clipPath); break;
+            case AudioCommandQueue.STOP_ALL: stopAllNow(); break;
+            case AudioCommandQueue.STOP_INSTANCE: stopInstanceNow(id); break;
+            case AudioCommandQueue.SET_VOLUME: setVolumeNow(id, volume); break;
+            case AudioCommandQueue.SET_PAN: setPanNow(id, pan); break;
+            case AudioCommandQueue.SET_MIXER_MODE: setMixerModeNow(loop); break;
+            case AudioCommandQueue.PLAY_MUSIC: playMusicNow(clipPath, loop, id); break;
+            case AudioCommandQueue.STOP_MUSIC: stopMusicNow(id); break;
+            case AudioCommandQueue.PAUSE_MUSIC: if (music != null) music.setPaused(true); break;
+            case AudioCommandQueue.RESUME_MUSIC: if (music != null) music.setPaused(false); break;
+            case AudioCommandQueue.SET_MUSIC_VOLUME: if (music != null) music.setVolume(volume); break;
         }
     }
     
+    //Plays clipPath, as instance id in mixer mode. A sound that is not loaded waits for its load.
+    private static void playNow (String clipPath, float volume, float pan, boolean loop, long id)
+    {
+        if (startPlaying(clipPath, volume, pan, loop, id))
+        {
+            return;
+        }
+        
+        if (pendingPlays.size() == MAX_PENDING)
+        {
+            System.out.println("Audio clip at \"" + clipPath + "\" could not be played. Too many sounds are loading.");
+            return;
+        }
+        
+        //Only the first play of a path starts its load.
+        boolean loading = false;
+        for (PendingPlay pending : pendingPlays)
+        {
+            loading |= pending.clipPath.equals(clipPath);
+        }
+        pendingPlays.add(new PendingPlay(clipPath, volume, pan, loop, id));
+        if (!loading)
+        {
+            loadLater(clipPath, mixerVoices, false);
+        }
+    }
+    
+    //Plays clipPath if it is loaded for the current mode. Returns false if it is not loaded.
+    private static boolean startPlaying (String clipPath, float volume, float pan, boolean loop, long id)
+    {
+        if (mixerVoices)
+        {
+            PcmSound sound = soundMap.get(clipPath);
+            if (sound == null)
+            {
+                return false;
+            }
+            Integer maxVoices = maxVoicesMap.get(clipPath);
+            AudioMixer.play(sound, volume, pan, loop, maxVoices == null ? 0 : maxVoices,
+                            id > 0 ? id : AudioMixer.reserveId());
+            return true;
+        }
+        
+        //Map checks to see if Clip has already been loaded.
+        Clip clip = clipMap.get(clipPath);
+        if (clip == null)
+        {
+            return false;
+        }
+        //Plays audio clip.
+        tryToPlay(clip, loop);
+        return true;
+    }
+    
+    //Loads clipPath on a loader thread, then tells the audio thread it is ready.
+    //Unless keep is true, it is unloaded then if no play or Asset still wants it.
+    private static void loadLater (final String clipPath, final boolean sound, final boolean keep)
+    {
+        AssetLoader.getWorkers().execute(new Runnable()
+        {
+            public void run ()
+            {
+                //Joins any load of the same path already in flight.
+                if (sound) loadSound(clipPath);
+                else loadClip(clipPath);
+                
+                //Never dropped, or plays waiting on it would wait forever. Waits for room instead.
+                while (!send(AudioCommandQueue.LOADED, clipPath, 0, 0f, 0f, keep))
+                {
+                    LockSupport.parkNanos(1000000L);
+                }
+            }
+        });
+    }
+    
+    //Plays everything waiting on clipPath. Plays whose load failed are dropped. Called on the audio thread.
+    private static void playPending (String clipPath, boolean keep)
+    {
+        boolean played = false;
+        Iterator<PendingPlay> iterator = pendingPlays.iterator();
+        while (iterator.hasNext())
+        {
+            PendingPlay pending = iterator.next();
+            if (pending.clipPath.equals(clipPath))
+            {
+                iterator.remove();
+                startPlaying(clipPath, pending.volume, pending.pan, pending.loop, pending.id);
+                played = true;
+            }
+        }
+        
+        //Every play was stopped or unloaded while it loaded, so nothing is left to keep it.
+        if (!played && !keep)
+        {
+            unloadNow(clipPath, false);
+        }
+    }
+    
+    //Drops plays waiting on clipPath, or on every path if clipPath is null. Called on the audio thread.
+    private static void cancelPending (String clipPath)
+    {
+        Iterator<PendingPlay> iterator = pendingPlays.iterator();
+        while (iterator.hasNext())
+        {
+            PendingPlay pending = iterator.next();
+            if (clipPath == null || pending.clipPath.equals(clipPath))
+            {
+                iterator.remove();
+            }
+        }
+    }
+    
+    //Returns the play waiting as instance id, or null. Called on the audio thread.
+    private static PendingPlay findPending (long id)
+    {
+        for (PendingPlay pending : pendingPlays)
+        {
+            if (id > 0 && pending.id == id)
+            {
+                return pending;
+            }
+        }
+        return null;
+    }
+    
+    //Stops one instance now, even if it is still loading. Called on the audio thread.
+    private static void stopInstanceNow (long id)
+    {
+        pendingPlays.remove(findPending(id));
+        AudioMixer.stop(id);
+    }
+    
+    //Sets one instance's volume now. Called on the audio thread.
+    private static void setVolumeNow (long id, float volume)
+    {
+        PendingPlay pending = findPending(id);
+        if (pending != null) pending.volume = volume;
+        AudioMixer.setVolume(id, volume);
+    }
+    
+    //Sets one instance's pan now. Called on the audio thread.
+    private static void setPanNow (long id, float pan)
+    {
+        PendingPlay pending = findPending(id);
+        if (pending != null) pending.pan = pan;
+        AudioMixer.setPan(id, pan);
+    }
+    
     //Loads clip located at clipPath.
+    //It is loaded on a loader thread, so this returns at once.
     public static void load (String clipPath)
     {
-        //Hashtable checks to see if Clip has already been loaded.
-        if (clipHashtable.containsKey(clipPath))
+        //Map checks to see if it has already been loaded.
+        if (mixerMode ? soundMap.containsKey(clipPath) : clipMap.containsKey(clipPath))
         {
             //Notifies Console that clip has already been loaded.
             System.out.println("Audio clip at \"" + clipPath + "\" has already been loaded");
         }
         else
         {
-            //Gets url from relative class path.
-            URL url = audioManager.getClass().getClassLoader().getResource("resources/sounds/" + clipPath);
-        	
             //Tries to load clip
-            try
+            loadLater(clipPath, mixerMode, true);
+        }
+    }
+    
+    //Returns clip at clipPath, opening it if needed. Returns null if it could not be loaded.
+    private static Clip loadClip (String clipPath)
+    {
+        return loadOnce(clipPath, clipMap, loadingMap, CLIP_LOADER);
+    }
+    
+    //Returns sound at clipPath for the mixer, decoding it if needed. Returns null if it could not be loaded.
+    private static PcmSound loadSound (String clipPath)
+    {
+        return loadOnce(clipPath, soundMap, soundLoadingMap, SOUND_LOADER);
+    }
+    
+    //Returns what cache holds at path, loading it with loader if needed. Every thread
+    //asking for the same path while it loads waits on the same load.
+    private static <T> T loadOnce (final String path, ConcurrentHashMap<String, T> cache,
+                                   ConcurrentHashMap<String, FutureTask<T>> loading, final Loader<T> loader)
+    {
+        T value = cache.get(path);
+        if (value != null)
+        {
+            return value;
+        }
+        
+        //Joins a load already in flight, or starts one.
+        FutureTask<T> task = new FutureTask<T>(new Callable<T>()
+        {
+            public T call ()
+            {
+                return loader.read(path);
+            }
+        });
+        FutureTask<T> inFlight = loading.putIfAbsent(path, task);
+        if (inFlight == null)
+        {
+            inFlight = task;
+            
+            //A load may have finished between the first check and now.
+            value = cache.get(path);
+            if (value != null)
+            {
+                loading.remove(path, task);
+                return value;
+            }
+            
+            //Loads on this thread, outside every lock.
+            task.run();
+        }
+        
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    value = inFlight.get();
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    //Keeps waiting, then passes the interrupt on.
+                    interrupted = true;
+                }
+            }
+        }
+        catch (ExecutionException e)
+        {
+            System.out.println("Audio clip at \"" + path + "\" could not be loaded.");
+            value = null;
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        if (inFlight == task)
+        {
+            //Adds newly loaded value to the map before anyone else stops waiting on it.
+            if (value != null)
+            {
+                T loaded = cache.putIfAbsent(path, value);
+                if (loaded != null)
+                {
+                    //A loader thread published it first, so the extra is let go.
+                    loader.discard(value);
+                    value = loaded;
+                }
+            }
+            loading.remove(path, task);
+        }
+        
+        return value;
+    }
+    
+    //Returns a handle that keeps the clip at clipPath loaded until released.
+    public static Asset<Clip> acquire (String clipPath)
+    {
+        Asset<Clip> asset = new Asset<Clip>(clipPath)
+        {
+            protected Clip retain (String path)
+            {
+                return AudioManager.retain(path);
+            }
+            
+            protected void drop (String path)
+            {
+                AudioManager.drop(path);
+            }
+            
+            //Looks the clip up, since it may have still been loading when acquired.
+            public Clip get ()
+            {
+                return isHeld() ? clipMap.get(getPath()) : null;
+            }
+        };
+        asset.acquire();
+        return asset;
+    }
+    
+    //Counts a reference to clipPath and starts loading it on a loader thread if needed.
+    //Returns the clip if it is already loaded. In mixer mode the sound is loaded for AudioMixer instead and null is returned.
+    private static Clip retain (String clipPath)
+    {
+        //Counted first, so no one can close it while it loads.
+        synchronized (writeLock)
+        {
+            Integer references = referenceMap.get(clipPath);
+            referenceMap.put(clipPath, references == null ? 1 : references + 1);
+        }
+        if (mixerMode)
+        {
+            if (!soundMap.containsKey(clipPath))
+            {
+                loadLater(clipPath, true, false);
+            }
+            return null;
+        }
+        
+        Clip clip = clipMap.get(clipPath);
+        if (clip == null)
+        {
+            loadLater(clipPath, false, false);
+        }
+        return clip;
+    }
+    
+    //Lets a reference to clipPath go, closing the clip after the last one.
+    private static void drop (String clipPath)
+    {
+        synchronized (writeLock)
+        {
+            Integer references = referenceMap.get(clipPath);
+            if (references == null || references <= 1)
             {
-                //Gets an AudioInputStream object to stream the file from the url.
-                AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(url);
-                //Gets a sound clip
-                Clip clip = AudioSystem.getClip();
-                //Loads audio from AudioInputStream into the clip.
-                clip.open(audioInputStream);
-                //Adds newly loaded clip to the Hashtable.
-                clipHashtable.put(clipPath, clip);
+                referenceMap.remove(clipPath);
+                //Closed on the audio thread after any PLAY already sent, unless acquired again by then.
+                send(AudioCommandQueue.UNLOAD, clipPath, 0, 0f, 0f, false);
             }
-            catch (UnsupportedAudioFileException e)
+            else
             {
-                 System.out.println("Audio clip at \"" + clipPath + "\" could not be loaded. Make sure it is of proper format.");
+                referenceMap.put(clipPath, references - 1);
             }
-            catch (Exception e)
+        }
+    }
+    
+    //Opens clip located at clipPath without caching it. Returns null if it could not be loaded.
+    //Safe to call from loader threads.
+    protected static Clip readClip (String clipPath)
+    {
+        //Converted to the output format first, so the system mixer has nothing to convert.
+        PcmSound sound = readSound(clipPath);
+        if (sound == null)
+        {
+            return null;
+        }
+    	
+        //Tries to load clip
+        try
+        {
+            //Gets a sound clip
+            Clip clip = AudioSystem.getClip();
+            //Loads the converted samples into the clip.
+            byte[] pcm = sound.getBytes();
+            clip.open(AudioMixer.FORMAT, pcm, 0, pcm.length);
+            return clip;
+        }
+        catch (Exception e)
+        {
+            System.out.println("Audio clip at \"" + clipPath + "\" could not be loaded. Make sure a sound device is available.");
+        }
+        return null;
+    }
+    
+    //Decodes sound at clipPath in the output format without caching it, reading DiskCache's
+    //converted samples if it is on. Returns null if it could not be loaded.
+    //Safe to call from loader threads.
+    protected static PcmSound readSound (String clipPath)
+    {
+        PcmSound sound;
+        if (!DiskCache.isEnabled())
+        {
+            //Gets resource from a mounted AssetPack or the class path.
+            InputStream stream = FileManager.openResource("sounds/" + clipPath);
+            sound = stream == null ? null : PcmSound.read(stream);
+        }
+        else
+        {
+            sound = readCachedSound(clipPath);
+        }
+        
+        if (sound == null)
+        {
+            System.out.println("Audio clip at \"" + clipPath + "\" could not be loaded. Make sure it is of proper format.");
+        }
+        return sound;
+    }
+    
+    //Decodes sound at clipPath through DiskCache. Returns null if it could not be loaded.
+    private static PcmSound readCachedSound (String clipPath)
+    {
+        ByteBuffer source = FileManager.readResource("sounds/" + clipPath);
+        if (source == null)
+        {
+            return null;
+        }
+        
+        //Keyed by rate too, so changing the output rate converts again.
+        String key = "sounds/" + clipPath + "@" + (int)AudioMixer.OUTPUT_RATE;
+        byte[] hash = DiskCache.hash(source);
+        ByteBuffer samples = DiskCache.read(key, hash);
+        if (samples != null)
+        {
+            return PcmSound.read(samples);
+        }
+        
+        PcmSound sound = PcmSound.read(new ByteBufferInputStream(source));
+        if (sound != null)
+        {
+            DiskCache.write(key, hash, sound.write());
+        }
+        return sound;
+    }
+    
+    //Adds sounds decoded elsewhere to the map, keeping any already loaded.
+    protected static void publishSounds (Map<String, PcmSound> sounds)
+    {
+        for (Map.Entry<String, PcmSound> entry : sounds.entrySet())
+        {
+            soundMap.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    //Adds clips loaded elsewhere to the map, keeping any already loaded.
+    protected static void publish (Map<String, Clip> clips)
+    {
+        for (Map.Entry<String, Clip> entry : clips.entrySet())
+        {
+            if (clipMap.putIfAbsent(entry.getKey(), entry.getValue()) != null)
             {
-                System.out.println("Audio clip at \"" + clipPath + "\" could not be loaded. Make sure file exists in this directory.");
+                //Already loaded, so the extra line is let go.
+                entry.getValue().close();
             }
         }
     }
@@ -137,63 +658,313 @@ public class AudioManager
     //Stops a clip that is currently playing.
     public static void stop (String clipPath)
     {
-        //Hashtable checks to see if Clip has already been loaded.
-        if (clipHashtable.containsKey(clipPath))
+        send(AudioCommandQueue.STOP, clipPath, 0, 0f, 0f, false);
+    }
+    
+    //Stops a clip now. Called on the audio thread.
+    private static void stopNow (String clipPath)
+    {
+        cancelPending(clipPath);
+        
+        if (mixerVoices)
+        {
+            AudioMixer.stopSound(soundMap.get(clipPath));
+            return;
+        }
+        
+        //Map checks to see if Clip has already been loaded.
+        Clip clip = clipMap.get(clipPath);
+        if (clip != null)
         {
         	//Stop the clip from playing
-            ((Clip)clipHashtable.get(clipPath)).stop();
+            clip.stop();
             //and rewind it to the beginning.
-            ((Clip)clipHashtable.get(clipPath)).setFramePosition(0);
+            clip.setFramePosition(0);
         }
     }
     
     //Pauses a clip that is currently playing.
     public static void pause (String clipPath)
     {
+        send(AudioCommandQueue.PAUSE, clipPath, 0, 0f, 0f, false);
+    }
+    
+    //Pauses a clip now. Called on the audio thread.
+    private static void pauseNow (String clipPath)
+    {
+        if (mixerVoices)
+        {
+            AudioMixer.setSoundPaused(soundMap.get(clipPath), true);
+            return;
+        }
+        
         //If the Audio clip is currently playing
-        if (((Clip)clipHashtable.get(clipPath)).isRunning())
+        Clip clip = clipMap.get(clipPath);
+        if (clip != null && clip.isRunning())
         {
             //stop the clip
-            ((Clip)clipHashtable.get(clipPath)).stop();
+            clip.stop();
+        }
+    }
+    
+    //Resumes every paused instance of a clip.
+    public static void resume (String clipPath)
+    {
+        send(AudioCommandQueue.RESUME, clipPath, 0, 0f, 0f, false);
+    }
+    
+    //Resumes a clip now. Called on the audio thread.
+    private static void resumeNow (String clipPath)
+    {
+        if (mixerVoices)
+        {
+            AudioMixer.setSoundPaused(soundMap.get(clipPath), false);
+            return;
+        }
+        
+        Clip clip = clipMap.get(clipPath);
+        if (clip != null && !clip.isRunning())
+        {
+            clip.start();
         }
     }
     
     //Checks if selected clip is playing.
     public static boolean isPlaying (String clipPath)
     {
+        if (mixerMode)
+        {
+            return AudioMixer.isSoundPlaying(soundMap.get(clipPath));
+        }
+        
         //If the Audio clip is currently playing
-        return ((Clip)clipHashtable.get(clipPath)).isRunning();
+        Clip clip = clipMap.get(clipPath);
+        return clip != null && clip.isRunning();
     }
     
-    //Being tested for playing large .wav files.
+    //Streams and loops a large sound, like music, without loading it whole.
+    //clipPath is under resources/sounds/, or a file path if it is not found there.
     public static void playLarge (String clipPath)
     {
-        try 
+        playMusic(clipPath, true, 0);
+    }
+    
+    //Streams music at clipPath, cross-fading from any music already playing over fadeMillis.
+    public static void playMusic (String clipPath, boolean loop, long fadeMillis)
+    {
+        send(AudioCommandQueue.PLAY_MUSIC, clipPath, fadeMillis, 0f, 0f, loop);
+    }
+    
+    //Starts music now. Called on the audio thread.
+    private static void playMusicNow (String clipPath, boolean loop, long fadeMillis)
+    {
+        //Music always plays through the mixer.
+        if (!AudioMixer.start())
+        {
+            System.out.println("Music at \"" + clipPath + "\" could not be played.");
+            return;
+        }
+        
+        //Fades the old music out while the new fades in.
+        if (music != null)
+        {
+            music.fadeOut(fadeMillis);
+        }
+        
+        MusicStream stream = new MusicStream(clipPath, loop);
+        stream.fadeIn(fadeMillis);
+        if (!AudioMixer.addStream(stream))
+        {
+            System.out.println("Music at \"" + clipPath + "\" could not be played. Too many streams are fading.");
+            music = null;
+            return;
+        }
+        stream.start();
+        music = stream;
+    }
+    
+    //Fades music out over fadeMillis and stops it.
+    public static void stopMusic (long fadeMillis)
+    {
+        send(AudioCommandQueue.STOP_MUSIC, null, fadeMillis, 0f, 0f, false);
+    }
+    
+    //Stops music now. Called on the audio thread.
+    private static void stopMusicNow (long fadeMillis)
+    {
+        if (music != null)
         {
-            AudioClip clip = Applet.newAudioClip(new File(clipPath).toURI().toURL());
-            clip.loop();
+            if (fadeMillis > 0) music.fadeOut(fadeMillis);
+            else music.stop();
+            music = null;
         }
-        catch (Exception e) {}
+    }
+    
+    //Pauses music.
+    public static void pauseMusic ()
+    {
+        send(AudioCommandQueue.PAUSE_MUSIC, null, 0, 0f, 0f, false);
+    }
+    
+    //Resumes paused music.
+    public static void resumeMusic ()
+    {
+        send(AudioCommandQueue.RESUME_MUSIC, null, 0, 0f, 0f, false);
+    }
+    
+    //Sets music volume from 0 to 1.
+    public static void setMusicVolume (float volume)
+    {
+        send(AudioCommandQueue.SET_MUSIC_VOLUME, null, 0, volume, 0f, false);
+    }
+    
+    //Returns true if music is playing and not paused. Music just sent may not have started yet.
+    public static boolean isMusicPlaying ()
+    {
+        MusicStream current = music;
+        return current != null && !current.isPaused() && !current.isEnded();
     }
     
     //Stops all audio clips currently playing.
     public static void stopAll ()
     {
-        //Creates a list of all the keys in clipHashtable
-        Enumeration<String> keyList = clipHashtable.keys();
-     
-        //Iterates through clipHashtable's keys
-        while(keyList.hasMoreElements())
+        send(AudioCommandQueue.STOP_ALL, null, 0, 0f, 0f, false);
+    }
+    
+    //Stops all audio clips now. Called on the audio thread.
+    private static void stopAllNow ()
+    {
+        cancelPending(null);
+        
+        if (mixerVoices)
+        {
+            AudioMixer.stopAll();
+        }
+        
+        //Iterates through clipMap's keys
+        for (String clipPath : clipMap.keySet())
         {
-            //and runs the stop() method of the object corresponding to that key.
-            stop((String)keyList.nextElement());
+            //and stops the clip corresponding to that key.
+            Clip clip = clipMap.get(clipPath);
+            if (clip != null)
+            {
+                clip.stop();
+                clip.setFramePosition(0);
+            }
         }
     }
     
-    //Removes audio clip from clipHashtable.
+    //Removes audio clip from clipMap and frees its line, even if Assets still hold it.
     public static void unload (String clipPath)
     {
-        clipHashtable.remove(clipPath);
+        send(AudioCommandQueue.UNLOAD, clipPath, 0, 0f, 0f, true);
+    }
+    
+    //Removes clipPath now, if forced or no Asset holds it. Called on the audio thread.
+    private static void unloadNow (String clipPath, boolean force)
+    {
+        synchronized (writeLock)
+        {
+            if (force)
+            {
+                referenceMap.remove(clipPath);
+            }
+            else if (referenceMap.containsKey(clipPath))
+            {
+                //Acquired again since it was dropped.
+                return;
+            }
+            cancelPending(clipPath);
+            PcmSound sound = soundMap.remove(clipPath);
+            if (sound != null)
+            {
+                AudioMixer.stopSound(sound);
+            }
+            Clip clip = clipMap.remove(clipPath);
+            if (clip != null)
+            {
+                clip.close();
+            }
+        }
+    }
+    
+    //Plays sounds through AudioMixer on one line instead of a Clip each.
+    //Returns false if the mixer could not start or the switch was dropped, leaving the mode as it was.
+    public static boolean setMixerMode (boolean mixer)
+    {
+        //The line is opened here so the caller knows if it worked.
+        if (mixer && !AudioMixer.start())
+        {
+            return false;
+        }
+        
+        //The audio thread switches after every command already sent, so a PLAY sent
+        //before switching off cannot start a voice no one will stop.
+        boolean wasMixer = mixerMode;
+        mixerMode = mixer;
+        if (!send(AudioCommandQueue.SET_MIXER_MODE, null, 0, 0f, 0f, mixer))
+        {
+            //Dropped, so nothing changed.
+            mixerMode = wasMixer;
+            return false;
+        }
+        return true;
+    }
+    
+    //Switches where the audio thread sends sounds. Called on the audio thread.
+    private static void setMixerModeNow (boolean mixer)
+    {
+        if (mixer)
+        {
+            //Opened again in case switching off closed it in between.
+            mixerVoices = AudioMixer.start();
+            return;
+        }
+        
+        //Stops every voice and clip while they are still reachable.
+        stopAllNow();
+        mixerVoices = false;
+        //Music keeps the mixer running.
+        if (!AudioMixer.hasStreams())
+        {
+            AudioMixer.stop();
+        }
+    }
+    
+    //Returns true if sounds play through AudioMixer.
+    public static boolean getMixerMode ()
+    {
+        return mixerMode;
+    }
+    
+    //A play waiting for its sound to load.
+    private static class PendingPlay
+    {
+        private final String clipPath;
+        private float volume;
+        private float pan;
+        private final boolean loop;
+        private final long id;
+        
+        private PendingPlay (String clipPath, float volume, float pan, boolean loop, long id)
+        {
+            this.clipPath = clipPath;
+            this.volume = volume;
+            this.pan = pan;
+            this.loop = loop;
+            this.id = id;
+        }
+    }
+    
+    //Reads one kind of audio for loadOnce.
+    private static abstract class Loader<T>
+    {
+        //Returns what is at clipPath, or null if it could not be loaded.
+        protected abstract T read (String clipPath);
+        //Lets go of a duplicate.
+        protected void discard (T value)
+        {
+        }
     }
     
     //Returns clipPath's extension.
@@ -0,0 +1,505 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: AudioMixer                                                      |
+| Date: 10/18/2026                                                      |
+| Description: This class mixes every playing sound into one            |
+| SourceDataLine on its own thread. Sounds play on voices from a fixed  |
+| pool, each with its own volume and pan, and read PcmSound samples     |
+| shared with every other voice playing the same sound. Playing a sound |
+| only sets up a voice; no line is opened.                              |
+|                                                                       |
+| A sound may be given a most voices at once. Playing it past that, or  |
+| with every voice busy, cuts off the oldest voice instead.             |
+|                                                                       |
+| MusicStreams are mixed in the same way from their own ring buffers.   |
+|                                                                       |
+| Notes: Sounds are resampled to OUTPUT_RATE when they load, so voices  |
+| are copied straight through. Others are blended linearly, as is music.|
+| The line's buffer is a few mix blocks long, so smaller blocks mean    |
+| lower latency but more chances to run dry.                            |
+=========================================================================
+ */
+package mizuEngine;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AudioMixer
+{
+	//Output format, 16 bit stereo. Sounds are converted to it as they load.
+	public static final float OUTPUT_RATE = 44100f;
+	public static final AudioFormat FORMAT = new AudioFormat(OUTPUT_RATE, 16, 2, true, false);
+	private static final int BYTES_PER_FRAME = 4;
+	//Voices that can play at once.
+	public static final int MAX_VOICES = 32;
+	//Streams that can play at once, enough to cross-fade.
+	public static final int MAX_STREAMS = 4;
+	//Mix blocks the line holds.
+	private static final int BLOCKS_BUFFERED = 3;
+
+	//Frames mixed at a time.
+	private static int blockFrames = 512;
+
+	//The line and the thread feeding it.
+	private static SourceDataLine line;
+	private static Thread mixerThread;
+	private static volatile boolean running;
+
+	//Voice arrays. A null sound is a free voice. Hold voiceLock.
+	private static final Object voiceLock = new Object();
+	private static final PcmSound[] sounds = new PcmSound[MAX_VOICES];
+	private static final long[] ids = new long[MAX_VOICES];
+	private static final double[] positions = new double[MAX_VOICES];
+	private static final double[] steps = new double[MAX_VOICES];
+	private static final float[] volumes = new float[MAX_VOICES];
+	private static final float[] pans = new float[MAX_VOICES];
+	private static final boolean[] loops = new boolean[MAX_VOICES];
+	private static final boolean[] paused = new boolean[MAX_VOICES];
+	//Streams, like music, read from their own ring buffers. Hold voiceLock.
+	private static final MusicStream[] streams = new MusicStream[MAX_STREAMS];
+	//Id given to the next voice played. Older voices have lower ids.
+	private static final AtomicLong nextId = new AtomicLong(1);
+	//Voices cut off to make room. Counted under voiceLock, read from any thread.
+	private static volatile long steals = 0;
+
+	//Mix buffers.
+	private static float[] mixBuffer;
+	private static byte[] outputBuffer;
+
+	//Sets how many frames are mixed at a time. Takes effect on the next start.
+	public static void setBlockFrames (int frames)
+	{
+		blockFrames = Math.max(64, frames);
+	}
+
+	//Opens the line and starts mixing. Returns false if there is no line to open.
+	public static synchronized boolean start ()
+	{
+		if (running)
+			return true;
+
+		try
+		{
+			line = AudioSystem.getSourceDataLine(FORMAT);
+			line.open(FORMAT, blockFrames * BYTES_PER_FRAME * BLOCKS_BUFFERED);
+			line.start();
+		}
+		catch (Exception e)
+		{
+			System.out.println("Audio mixer could not open a line.");
+			line = null;
+			return false;
+		}
+
+		mixBuffer = new float[blockFrames * 2];
+		outputBuffer = new byte[blockFrames * BYTES_PER_FRAME];
+
+		running = true;
+		mixerThread = new Thread(new Runnable()
+		{
+			public void run ()
+			{
+				mixLoop();
+			}
+		}, "MizuEngine Audio Mixer");
+		//Mixer never keeps the game from shutting down.
+		mixerThread.setDaemon(true);
+		mixerThread.setPriority(Thread.MAX_PRIORITY);
+		mixerThread.start();
+		return true;
+	}
+
+	//Stops mixing and closes the line.
+	public static synchronized void stop ()
+	{
+		if (!running)
+			return;
+
+		running = false;
+		try
+		{
+			mixerThread.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		mixerThread = null;
+
+		line.stop();
+		line.close();
+		line = null;
+		stopAll();
+
+		//Streams stop decoding too.
+		synchronized (voiceLock)
+		{
+			for (int s = 0; s < MAX_STREAMS; s++)
+			{
+				if (streams[s] != null)
+				{
+					streams[s].stop();
+					streams[s] = null;
+				}
+			}
+		}
+	}
+
+	//Returns true while mixing.
+	public static boolean isRunning ()
+	{
+		return running;
+	}
+
+	//Mixes and writes blocks until stopped.
+	private static void mixLoop ()
+	{
+		while (running)
+		{
+			mix(blockFrames);
+
+			//Blocks until the line has room, which paces the thread.
+			line.write(outputBuffer, 0, blockFrames * BYTES_PER_FRAME);
+		}
+	}
+
+	//Mixes frames of every playing voice into outputBuffer.
+	private static void mix (int frames)
+	{
+		Arrays.fill(mixBuffer, 0, frames * 2, 0f);
+
+		synchronized (voiceLock)
+		{
+			for (int v = 0; v < MAX_VOICES; v++)
+			{
+				if (sounds[v] != null && !paused[v])
+				{
+					mixVoice(v, frames);
+				}
+			}
+			for (int s = 0; s < MAX_STREAMS; s++)
+			{
+				//Finished streams are dropped.
+				if (streams[s] != null && !streams[s].mix(mixBuffer, frames))
+				{
+					streams[s] = null;
+				}
+			}
+		}
+
+		//Clamps to 16 bits, little endian.
+		for (int i = 0; i < frames * 2; i++)
+		{
+			int sample = (int)mixBuffer[i];
+			if (sample > Short.MAX_VALUE) sample = Short.MAX_VALUE;
+			else if (sample < Short.MIN_VALUE) sample = Short.MIN_VALUE;
+			outputBuffer[i * 2] = (byte)sample;
+			outputBuffer[i * 2 + 1] = (byte)(sample >> 8);
+		}
+	}
+
+	//Adds frames of voice v into mixBuffer. Hold voiceLock.
+	private static void mixVoice (int v, int frames)
+	{
+		short[] samples = sounds[v].getSamples();
+		int length = sounds[v].getFrames();
+		double position = positions[v];
+		double step = steps[v];
+
+		//Pans by turning the other side down.
+		float left = volumes[v] * Math.min(1f, 1f - pans[v]);
+		float right = volumes[v] * Math.min(1f, 1f + pans[v]);
+
+		//Sounds already at the output rate are copied straight through.
+		if (step == 1.0)
+		{
+			int frame = (int)position;
+			for (int f = 0; f < frames; f++)
+			{
+				if (frame >= length)
+				{
+					if (!loops[v] || length == 0)
+					{
+						sounds[v] = null;
+						return;
+					}
+					frame = 0;
+				}
+				mixBuffer[f * 2] += samples[frame * 2] * left;
+				mixBuffer[f * 2 + 1] += samples[frame * 2 + 1] * right;
+				frame++;
+			}
+			positions[v] = frame;
+			return;
+		}
+
+		for (int f = 0; f < frames; f++)
+		{
+			if (position >= length)
+			{
+				if (!loops[v] || length == 0)
+				{
+					//Finished, so the voice is freed.
+					sounds[v] = null;
+					return;
+				}
+				position %= length;
+			}
+
+			//Blends between the two nearest frames.
+			int i = (int)position;
+			int j = i + 1 < length ? i + 1 : (loops[v] ? 0 : i);
+			float blend = (float)(position - i);
+			float sampleLeft = samples[i * 2] + (samples[j * 2] - samples[i * 2]) * blend;
+			float sampleRight = samples[i * 2 + 1] + (samples[j * 2 + 1] - samples[i * 2 + 1]) * blend;
+
+			mixBuffer[f * 2] += sampleLeft * left;
+			mixBuffer[f * 2 + 1] += sampleRight * right;
+			position += step;
+		}
+		positions[v] = position;
+	}
+
+	//Plays sound with volume from 0 to 1 and pan from -1 (left) to 1 (right).
+	//Returns the voice's id, or -1 if sound is null.
+	public static long play (PcmSound sound, float volume, float pan, boolean loop)
+	{
+		return play(sound, volume, pan, loop, 0);
+	}
+
+	//Plays sound like play, with at most maxVoices of it at once, or any number if 0.
+	//When sound already has maxVoices, or every voice is busy, the oldest is cut off.
+	public static long play (PcmSound sound, float volume, float pan, boolean loop, int maxVoices)
+	{
+		return play(sound, volume, pan, loop, maxVoices, reserveId());
+	}
+
+	//Returns an id for a voice played later, so it can be handed out before the voice starts.
+	public static long reserveId ()
+	{
+		return nextId.getAndIncrement();
+	}
+
+	//Plays sound like play on a voice with id from reserveId.
+	protected static long play (PcmSound sound, float volume, float pan, boolean loop, int maxVoices, long id)
+	{
+		if (sound == null)
+			return -1;
+
+		synchronized (voiceLock)
+		{
+			//Finds a free voice, the oldest voice, and the oldest playing sound.
+			int free = -1;
+			int oldest = -1;
+			int oldestSame = -1;
+			int same = 0;
+			for (int v = 0; v < MAX_VOICES; v++)
+			{
+				if (sounds[v] == null)
+				{
+					if (free < 0) free = v;
+					continue;
+				}
+				if (oldest < 0 || ids[v] < ids[oldest]) oldest = v;
+				if (sounds[v] == sound)
+				{
+					same++;
+					if (oldestSame < 0 || ids[v] < ids[oldestSame]) oldestSame = v;
+				}
+			}
+
+			int v;
+			if (maxVoices > 0 && same >= maxVoices)
+				v = oldestSame;
+			else if (free >= 0)
+				v = free;
+			else
+				v = oldest;
+
+			if (sounds[v] != null)
+			{
+				steals++;
+			}
+
+			sounds[v] = sound;
+			ids[v] = id;
+			positions[v] = 0;
+			steps[v] = sound.getSampleRate() / OUTPUT_RATE;
+			volumes[v] = Math.max(0f, volume);
+			pans[v] = Math.max(-1f, Math.min(1f, pan));
+			loops[v] = loop;
+			paused[v] = false;
+			return ids[v];
+		}
+	}
+
+	//Returns the voice playing id, or -1 if it has finished. Hold voiceLock.
+	private static int findVoice (long id)
+	{
+		for (int v = 0; v < MAX_VOICES; v++)
+		{
+			if (sounds[v] != null && ids[v] == id)
+				return v;
+		}
+		return -1;
+	}
+
+	//Stops voice id.
+	public static void stop (long id)
+	{
+		synchronized (voiceLock)
+		{
+			int v = findVoice(id);
+			if (v >= 0) sounds[v] = null;
+		}
+	}
+
+	//Pauses or resumes voice id.
+	public static void setPaused (long id, boolean pause)
+	{
+		synchronized (voiceLock)
+		{
+			int v = findVoice(id);
+			if (v >= 0) paused[v] = pause;
+		}
+	}
+
+	//Sets voice id's volume from 0 to 1.
+	public static void setVolume (long id, float volume)
+	{
+		synchronized (voiceLock)
+		{
+			int v = findVoice(id);
+			if (v >= 0) volumes[v] = Math.max(0f, volume);
+		}
+	}
+
+	//Sets voice id's pan from -1 (left) to 1 (right).
+	public static void setPan (long id, float pan)
+	{
+		synchronized (voiceLock)
+		{
+			int v = findVoice(id);
+			if (v >= 0) pans[v] = Math.max(-1f, Math.min(1f, pan));
+		}
+	}
+
+	//Returns true if voice id is playing and not paused.
+	public static boolean isPlaying (long id)
+	{
+		synchronized (voiceLock)
+		{
+			int v = findVoice(id);
+			return v >= 0 && !paused[v];
+		}
+	}
+
+	//Stops every voice playing sound.
+	public static void stopSound (PcmSound sound)
+	{
+		synchronized (voiceLock)
+		{
+			for (int v = 0; v < MAX_VOICES; v++)
+			{
+				if (sounds[v] == sound) sounds[v] = null;
+			}
+		}
+	}
+
+	//Pauses or resumes every voice playing sound. Returns how many there were.
+	public static int setSoundPaused (PcmSound sound, boolean pause)
+	{
+		int count = 0;
+		synchronized (voiceLock)
+		{
+			for (int v = 0; v < MAX_VOICES; v++)
+			{
+				if (sound != null && sounds[v] == sound && paused[v] != pause)
+				{
+					paused[v] = pause;
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	//Returns true if any voice is playing sound and not paused.
+	public static boolean isSoundPlaying (PcmSound sound)
+	{
+		synchronized (voiceLock)
+		{
+			for (int v = 0; v < MAX_VOICES; v++)
+			{
+				if (sound != null && sounds[v] == sound && !paused[v]) return true;
+			}
+		}
+		return false;
+	}
+
+	//Adds stream to the mix. Returns false if every stream slot is busy.
+	public static boolean addStream (MusicStream stream)
+	{
+		synchronized (voiceLock)
+		{
+			for (int s = 0; s < MAX_STREAMS; s++)
+			{
+				if (streams[s] == null)
+				{
+					streams[s] = stream;
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	//Returns true if any stream is in the mix.
+	public static boolean hasStreams ()
+	{
+		synchronized (voiceLock)
+		{
+			for (int s = 0; s < MAX_STREAMS; s++)
+			{
+				if (streams[s] != null) return true;
+			}
+		}
+		return false;
+	}
+
+	//Stops every voice.
+	public static void stopAll ()
+	{
+		synchronized (voiceLock)
+		{
+			Arrays.fill(sounds, null);
+		}
+	}
+
+	//Returns how many voices have been cut off to make room.
+	public static long getSteals ()
+	{
+		return steals;
+	}
+
+	//Returns how many voices are playing.
+	public static int getActiveVoices ()
+	{
+		int count = 0;
+		synchronized (voiceLock)
+		{
+			for (int v = 0; v < MAX_VOICES; v++)
+			{
+				if (sounds[v] != null) count++;
+			}
+		}
+		return count;
+	}
+}
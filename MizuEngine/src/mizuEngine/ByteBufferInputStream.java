@@ -0,0 +1,86 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: ByteBufferInputStream                                           |
+| Date: 10/18/2026                                                      |
+| Description: This class reads a ByteBuffer as an InputStream, so      |
+| ImageIO and AudioSystem can decode assets straight out of a mapped    |
+| AssetPack. Mark and reset are supported, which AudioSystem needs to   |
+| find a sound's format.                                                |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+public class ByteBufferInputStream extends InputStream
+{
+	//Buffer being read.
+	private final ByteBuffer buffer;
+	//Position marked.
+	private int mark;
+
+	//ByteBufferInputStream constructor.
+	public ByteBufferInputStream (ByteBuffer buffer)
+	{
+		this.buffer = buffer;
+		mark = buffer.position();
+	}
+
+	//Reads one byte, or -1 at the end.
+	public int read ()
+	{
+		if (!buffer.hasRemaining())
+		{
+			return -1;
+		}
+		return buffer.get() & 0xFF;
+	}
+
+	//Reads up to length bytes into bytes, or -1 at the end.
+	public int read (byte[] bytes, int offset, int length)
+	{
+		if (length == 0)
+		{
+			return 0;
+		}
+		if (!buffer.hasRemaining())
+		{
+			return -1;
+		}
+		length = Math.min(length, buffer.remaining());
+		buffer.get(bytes, offset, length);
+		return length;
+	}
+
+	//Skips up to n bytes.
+	public long skip (long n)
+	{
+		int skipped = (int)Math.max(0, Math.min(n, buffer.remaining()));
+		buffer.position(buffer.position() + skipped);
+		return skipped;
+	}
+
+	//Returns how many bytes are left.
+	public int available ()
+	{
+		return buffer.remaining();
+	}
+
+	//Mark and reset work with any read limit.
+	public boolean markSupported ()
+	{
+		return true;
+	}
+	public synchronized void mark (int readLimit)
+	{
+		mark = buffer.position();
+	}
+	public synchronized void reset ()
+	{
+		buffer.position(mark);
+	}
+}
@@ -0,0 +1,261 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: DebugOverlay                                                    |
+| Date: 10/18/2026                                                      |
+| Description: This class draws lines of debug text without making      |
+| garbage. Each frame the lines are written again into preallocated     |
+| character buffers. A line is only laid out again when its characters  |
+| differ from last frame, otherwise its cached GlyphVector is drawn.    |
+|                                                                       |
+| Notes: Lines are matched by position, so a line that changes every    |
+| frame is laid out every frame. Text past MAX_LINE_LENGTH is cut off   |
+| and lines past MAX_LINES are dropped.                                 |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.font.GlyphVector;
+import java.awt.font.FontRenderContext;
+
+import java.util.Queue;
+import java.util.ArrayDeque;
+
+public class DebugOverlay
+{
+	//Buffer sizes.
+	private final int MAX_LINES = 64;
+	private final int MAX_LINE_LENGTH = 64;
+
+	//Characters being written this frame.
+	private final char[][] lines;
+	private final int[] lineLengths;
+	//Characters drawn last frame and their layout.
+	private final char[][] drawnLines;
+	private final int[] drawnLengths;
+	private final GlyphVector[] glyphs;
+
+	//Lines written this frame.
+	private int lineCount;
+	//Line being written, -1 if dropped.
+	private int line;
+
+	//Font lines are drawn in and the context they were laid out for.
+	private final Font font;
+	private FontRenderContext fontRenderContext;
+
+	//Reused by Scenes that still fill a Queue.
+	private final Queue<String> debugQ;
+
+	//DebugOverlay constructor.
+	public DebugOverlay (Font font)
+	{
+		this.font = font;
+		lines = new char[MAX_LINES][MAX_LINE_LENGTH];
+		lineLengths = new int[MAX_LINES];
+		drawnLines = new char[MAX_LINES][MAX_LINE_LENGTH];
+		drawnLengths = new int[MAX_LINES];
+		glyphs = new GlyphVector[MAX_LINES];
+		debugQ = new ArrayDeque<String>();
+		lineCount = 0;
+		line = -1;
+	}
+
+	//Starts a new frame of lines.
+	public void begin ()
+	{
+		lineCount = 0;
+		line = -1;
+	}
+
+	//Starts a new line.
+	public DebugOverlay beginLine ()
+	{
+		if (lineCount < MAX_LINES)
+		{
+			line = lineCount++;
+			lineLengths[line] = 0;
+		}
+		else
+		{
+			line = -1;
+		}
+		return this;
+	}
+
+	//Adds a line of text.
+	public DebugOverlay add (String text)
+	{
+		return beginLine().append(text);
+	}
+
+	//Adds a label followed by a number.
+	public DebugOverlay add (String label, long value)
+	{
+		return beginLine().append(label).append(value);
+	}
+
+	//Adds a label followed by true or false.
+	public DebugOverlay add (String label, boolean value)
+	{
+		return beginLine().append(label).append(value);
+	}
+
+	//Adds a label followed by text.
+	public DebugOverlay add (String label, String value)
+	{
+		return beginLine().append(label).append(value);
+	}
+
+	//Appends text to the current line.
+	public DebugOverlay append (String text)
+	{
+		if (text == null)
+			text = "null";
+		for (int i = 0; i < text.length(); i++)
+		{
+			append(text.charAt(i));
+		}
+		return this;
+	}
+
+	//Appends true or false to the current line.
+	public DebugOverlay append (boolean value)
+	{
+		return append(value ? "true" : "false");
+	}
+
+	//Appends a number to the current line.
+	public DebugOverlay append (long value)
+	{
+		return appendPadded(value, 0);
+	}
+
+	//Appends a number right aligned in width characters.
+	public DebugOverlay appendPadded (long value, int width)
+	{
+		//Long.MIN_VALUE cannot be negated.
+		if (value == Long.MIN_VALUE)
+		{
+			appendSpaces(width - 20);
+			return append("-9223372036854775808");
+		}
+
+		//Counts digits.
+		long magnitude = Math.abs(value);
+		int digits = 1;
+		for (long rest = magnitude / 10; rest > 0; rest /= 10)
+		{
+			digits++;
+		}
+
+		appendSpaces(width - digits - (value < 0 ? 1 : 0));
+		if (value < 0)
+			append('-');
+
+		//Writes digits from the most significant down.
+		long divisor = 1;
+		for (int i = 1; i < digits; i++)
+		{
+			divisor *= 10;
+		}
+		for (; divisor > 0; divisor /= 10)
+		{
+			append((char)('0' + (magnitude / divisor) % 10));
+		}
+		return this;
+	}
+
+	//Appends nanos as milliseconds with two decimals, right aligned in width characters.
+	public DebugOverlay appendMillis (long nanos, int width)
+	{
+		long hundredths = nanos / 10000L;
+		appendPadded(hundredths / 100, width - 3);
+		append('.');
+		append((char)('0' + (hundredths / 10) % 10));
+		return append((char)('0' + hundredths % 10));
+	}
+
+	//Appends text right aligned in width characters.
+	public DebugOverlay appendPadded (String text, int width)
+	{
+		appendSpaces(width - text.length());
+		return append(text);
+	}
+
+	//Appends one character to the current line.
+	public DebugOverlay append (char c)
+	{
+		if (line >= 0 && lineLengths[line] < MAX_LINE_LENGTH)
+		{
+			lines[line][lineLengths[line]++] = c;
+		}
+		return this;
+	}
+
+	//Appends count spaces.
+	private void appendSpaces (int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			append(' ');
+		}
+	}
+
+	//Returns a cleared Queue for Scenes that still fill one.
+	protected Queue<String> getDebugQueue ()
+	{
+		debugQ.clear();
+		return debugQ;
+	}
+
+	//Returns how many lines were written this frame.
+	public int getLineCount ()
+	{
+		return lineCount;
+	}
+
+	//Draws this frame's lines starting at x, y.
+	public void render (Graphics2D g2d, int x, int y, int spacing)
+	{
+		//Layouts are only good for the context they were made in.
+		FontRenderContext context = g2d.getFontRenderContext();
+		boolean relayout = !context.equals(fontRenderContext);
+		if (relayout)
+		{
+			fontRenderContext = context;
+		}
+
+		for (int i = 0; i < lineCount; i++)
+		{
+			//Lays the line out again only if it changed.
+			if (relayout || glyphs[i] == null || !sameAsDrawn(i))
+			{
+				System.arraycopy(lines[i], 0, drawnLines[i], 0, lineLengths[i]);
+				drawnLengths[i] = lineLengths[i];
+				glyphs[i] = font.createGlyphVector(context, new String(lines[i], 0, lineLengths[i]));
+			}
+			g2d.drawGlyphVector(glyphs[i], x, y + spacing * i);
+		}
+	}
+
+	//Returns true if line i has the same characters as last drawn.
+	private boolean sameAsDrawn (int i)
+	{
+		if (lineLengths[i] != drawnLengths[i])
+			return false;
+
+		char[] current = lines[i];
+		char[] drawn = drawnLines[i];
+		for (int c = 0; c < lineLengths[i]; c++)
+		{
+			if (current[c] != drawn[c])
+				return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,232 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: DirtyRegions                                                    |
+| Date: 10/18/2026                                                      |
+| Description: This class keeps track of which parts of the screen      |
+| changed. Scenes mark rectangles dirty while updating. Overlapping or  |
+| touching rectangles are merged as they are added. When MizuEngine     |
+| renders in dirty region mode it clips to these rectangles, and skips  |
+| the frame if nothing is dirty.                                        |
+|                                                                       |
+| Notes: With two buffers the back buffer holds the frame before last,  |
+| so each frame also redraws what was dirty in the frame before it.     |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.awt.Rectangle;
+
+public class DirtyRegions
+{
+	//Allows only one DirtyRegions.
+	private static DirtyRegions dirtyRegions;
+
+	//Most rectangles kept before the closest ones are merged.
+	private static final int MAX_REGIONS = 16;
+
+	//Canvas size.
+	private final int WIDTH;
+	private final int HEIGHT;
+
+	//Regions marked this frame, last frame, and being rendered.
+	private static RegionSet marked;
+	private static RegionSet previous;
+	private static RegionSet rendering;
+
+	//True if the whole screen must be redrawn. Can be set from any thread.
+	private static volatile boolean allDirty;
+
+	//DirtyRegions constructor.
+	private DirtyRegions ()
+	{
+		//Initializes canvas size.
+		WIDTH = MizuEngine.getMizuEngine().getWidth();
+		HEIGHT = MizuEngine.getMizuEngine().getHeight();
+
+		marked = new RegionSet();
+		previous = new RegionSet();
+		rendering = new RegionSet();
+
+		//Nothing has been drawn yet.
+		allDirty = true;
+	}
+
+	//Returns the dirtyRegions.
+	public static DirtyRegions getDirtyRegions ()
+	{
+		//Checks to see if dirtyRegions is null. If so, it creates one.
+		if (dirtyRegions == null)
+		{
+			//Makes a single DirtyRegions.
+			dirtyRegions = new DirtyRegions();
+		}
+		//Returns the dirtyRegions.
+		return dirtyRegions;
+	}
+
+	//Marks a rectangle of the screen as changed.
+	public static void markDirty (int x, int y, int width, int height)
+	{
+		//Keeps the rectangle on the canvas.
+		int left = Math.max(0, x);
+		int top = Math.max(0, y);
+		int right = Math.min(dirtyRegions.WIDTH, x + width);
+		int bottom = Math.min(dirtyRegions.HEIGHT, y + height);
+
+		if (left < right && top < bottom)
+		{
+			marked.add(left, top, right, bottom);
+		}
+	}
+
+	//Marks a rectangle of the screen as changed.
+	public static void markDirty (Rectangle rectangle)
+	{
+		markDirty(rectangle.x, rectangle.y, rectangle.width, rectangle.height);
+	}
+
+	//Marks the whole screen as changed.
+	public static void markAllDirty ()
+	{
+		allDirty = true;
+	}
+
+	//Moves marked regions to be rendered. Returns false if nothing needs drawing.
+	protected static boolean publish ()
+	{
+		rendering.clear();
+
+		if (allDirty)
+		{
+			//Redraws all of this frame and the next, so both buffers are whole again.
+			allDirty = false;
+			marked.clear();
+			marked.add(0, 0, dirtyRegions.WIDTH, dirtyRegions.HEIGHT);
+		}
+
+		//Renders this frame's regions and last frame's.
+		rendering.addAll(marked);
+		rendering.addAll(previous);
+
+		//This frame's regions become last frame's.
+		RegionSet swap = previous;
+		previous = marked;
+		marked = swap;
+		marked.clear();
+
+		return rendering.count > 0;
+	}
+
+	//Returns how many regions are being rendered.
+	protected static int getRegionCount ()
+	{
+		return rendering.count;
+	}
+
+	//Copies rendered region i into rectangle.
+	protected static void getRegion (int i, Rectangle rectangle)
+	{
+		rectangle.setBounds(rendering.left[i], rendering.top[i],
+							rendering.right[i] - rendering.left[i], rendering.bottom[i] - rendering.top[i]);
+	}
+
+	//A set of rectangles merged as they are added.
+	private static class RegionSet
+	{
+		//Rectangle edges.
+		private final int[] left = new int[MAX_REGIONS];
+		private final int[] top = new int[MAX_REGIONS];
+		private final int[] right = new int[MAX_REGIONS];
+		private final int[] bottom = new int[MAX_REGIONS];
+		//Rectangles in use.
+		private int count;
+
+		//Adds a rectangle, merging it with any it overlaps or touches.
+		private void add (int l, int t, int r, int b)
+		{
+			boolean merged = true;
+			while (merged)
+			{
+				merged = false;
+
+				//Absorbs every rectangle it overlaps or touches.
+				for (int i = 0; i < count; i++)
+				{
+					if (l <= right[i] && left[i] <= r && t <= bottom[i] && top[i] <= b)
+					{
+						l = Math.min(l, left[i]);
+						t = Math.min(t, top[i]);
+						r = Math.max(r, right[i]);
+						b = Math.max(b, bottom[i]);
+						remove(i);
+						merged = true;
+						break;
+					}
+				}
+
+				//If full, merges into the rectangle that grows least and checks again.
+				if (!merged && count == MAX_REGIONS)
+				{
+					int cheapest = 0;
+					long leastGrowth = Long.MAX_VALUE;
+					for (int i = 0; i < count; i++)
+					{
+						long growth = area(Math.min(l, left[i]), Math.min(t, top[i]), Math.max(r, right[i]), Math.max(b, bottom[i]))
+									  - area(left[i], top[i], right[i], bottom[i]);
+						if (growth < leastGrowth)
+						{
+							leastGrowth = growth;
+							cheapest = i;
+						}
+					}
+					l = Math.min(l, left[cheapest]);
+					t = Math.min(t, top[cheapest]);
+					r = Math.max(r, right[cheapest]);
+					b = Math.max(b, bottom[cheapest]);
+					remove(cheapest);
+					merged = true;
+				}
+			}
+
+			left[count] = l;
+			top[count] = t;
+			right[count] = r;
+			bottom[count] = b;
+			count++;
+		}
+
+		//Adds every rectangle in other.
+		private void addAll (RegionSet other)
+		{
+			for (int i = 0; i < other.count; i++)
+			{
+				add(other.left[i], other.top[i], other.right[i], other.bottom[i]);
+			}
+		}
+
+		//Removes rectangle i by moving the last one into its place.
+		private void remove (int i)
+		{
+			count--;
+			left[i] = left[count];
+			top[i] = top[count];
+			right[i] = right[count];
+			bottom[i] = bottom[count];
+		}
+
+		//Removes all rectangles.
+		private void clear ()
+		{
+			count = 0;
+		}
+
+		//Returns the area between edges.
+		private long area (int l, int t, int r, int b)
+		{
+			return (long)(r - l) * (b - t);
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: DiskCache                                                       |
+| Date: 10/18/2026                                                      |
+| Description: This class keeps the results of slow work, like decoding |
+| a PNG, in files in a cache directory so the next launch can skip it.  |
+| Entries are keyed by asset path and stamped with a SHA-1 hash of the  |
+| asset they came from, so an entry is ignored and replaced once its    |
+| asset changes.                                                        |
+|                                                                       |
+| Notes: Off until enable is called. Entries are written to a temporary |
+| file and renamed into place, so a crash never leaves half of one.     |
+| Format: "MZDC", int version, 20 byte hash, int length, then data.     |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.Arrays;
+
+public class DiskCache
+{
+	//Identifies an entry.
+	private static final byte[] MAGIC = {'M', 'Z', 'D', 'C'};
+	//Version this class reads. Entries from other versions are replaced.
+	private static final int VERSION = 1;
+	//Bytes in a SHA-1 hash.
+	private static final int HASH_LENGTH = 20;
+	//Bytes before the data.
+	private static final int HEADER_LENGTH = 4 + 4 + HASH_LENGTH + 4;
+
+	//Directory entries are kept in, or null while off.
+	private static volatile File directory;
+
+	//Turns the cache on, keeping entries in cacheDirectory. Returns false if it could not be made.
+	public static boolean enable (File cacheDirectory)
+	{
+		if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs())
+		{
+			System.out.println("Cache directory \"" + cacheDirectory + "\" could not be made.");
+			return false;
+		}
+		directory = cacheDirectory;
+		return true;
+	}
+
+	//Turns the cache off. Entries are left on disk.
+	public static void disable ()
+	{
+		directory = null;
+	}
+
+	//Returns true if the cache is on.
+	public static boolean isEnabled ()
+	{
+		return directory != null;
+	}
+
+	//Returns the SHA-1 hash of what is left in buffer, leaving its position alone.
+	public static byte[] hash (ByteBuffer buffer)
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			digest.update(buffer.duplicate());
+			return digest.digest();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			//Every JVM has SHA-1.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	//Returns the data kept for key if it was made from an asset with hash, otherwise null.
+	public static ByteBuffer read (String key, byte[] hash)
+	{
+		File cacheDirectory = directory;
+		if (cacheDirectory == null)
+			return null;
+
+		File file = new File(cacheDirectory, fileName(key));
+		if (!file.isFile())
+			return null;
+
+		RandomAccessFile randomAccessFile = null;
+		try
+		{
+			randomAccessFile = new RandomAccessFile(file, "r");
+			FileChannel channel = randomAccessFile.getChannel();
+
+			//Header.
+			ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+			readFully(channel, header);
+			header.flip();
+
+			byte[] magic = new byte[MAGIC.length];
+			header.get(magic);
+			byte[] entryHash = new byte[HASH_LENGTH];
+			int version = header.getInt();
+			header.get(entryHash);
+			int length = header.getInt();
+
+			//Stale or from another version.
+			if (!Arrays.equals(magic, MAGIC) || version != VERSION || !Arrays.equals(entryHash, hash) ||
+				length < 0 || length != channel.size() - HEADER_LENGTH)
+			{
+				return null;
+			}
+
+			//Data, straight from the channel.
+			ByteBuffer data = ByteBuffer.allocateDirect(length);
+			readFully(channel, data);
+			data.flip();
+			return data;
+		}
+		catch (IOException e)
+		{
+			System.out.println("Cache entry for \"" + key + "\" could not be read.");
+			return null;
+		}
+		finally
+		{
+			try {if (randomAccessFile != null) randomAccessFile.close();}
+			catch (IOException e) {}
+		}
+	}
+
+	//Keeps what is left in data for key, stamped with hash. Returns false if it could not be written.
+	public static boolean write (String key, byte[] hash, ByteBuffer data)
+	{
+		File cacheDirectory = directory;
+		if (cacheDirectory == null)
+			return false;
+
+		File temporary = null;
+		try
+		{
+			//Written beside the entry so the rename stays on one disk.
+			temporary = File.createTempFile("entry", ".tmp", cacheDirectory);
+			FileOutputStream out = new FileOutputStream(temporary);
+			try
+			{
+				FileChannel channel = out.getChannel();
+
+				ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+				header.put(MAGIC);
+				header.putInt(VERSION);
+				header.put(hash);
+				header.putInt(data.remaining());
+				header.flip();
+
+				ByteBuffer[] buffers = {header, data.duplicate()};
+				while (buffers[1].hasRemaining() || buffers[0].hasRemaining())
+				{
+					channel.write(buffers);
+				}
+			}
+			finally
+			{
+				out.close();
+			}
+
+			//Replaces any old entry.
+			File file = new File(cacheDirectory, fileName(key));
+			if (!temporary.renameTo(file))
+			{
+				file.delete();
+				if (!temporary.renameTo(file))
+				{
+					throw new IOException("rename failed");
+				}
+			}
+			return true;
+		}
+		catch (IOException e)
+		{
+			System.out.println("Cache entry for \"" + key + "\" could not be written.");
+			if (temporary != null)
+			{
+				temporary.delete();
+			}
+			return false;
+		}
+	}
+
+	//Reads from channel until buffer is full.
+	private static void readFully (FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			if (channel.read(buffer) < 0)
+			{
+				throw new IOException("end of file");
+			}
+		}
+	}
+
+	//Returns the file name for key, a hash so any path makes a safe name.
+	private static String fileName (String key)
+	{
+		byte[] keyHash = hash(ByteBuffer.wrap(AssetPack.encode(key)));
+		StringBuilder name = new StringBuilder(HASH_LENGTH * 2 + 4);
+		for (int i = 0; i < keyHash.length; i++)
+		{
+			name.append(Character.forDigit((keyHash[i] >> 4) & 0xF, 16));
+			name.append(Character.forDigit(keyHash[i] & 0xF, 16));
+		}
+		return name.append(".bin").toString();
+	}
+}
@@ -142,6 +142,11 @@ public class DisplayManager
 
 		//Now in full screen.
 		fullScreen = true;
+		
+		//New window must be drawn in full.
+		DirtyRegions.markAllDirty();
+		//VolatileImages may not survive the mode change.
+		ImageManager.invalidateAccelerated();
 	}
 
 	//Adds panel to a new windowed JFrame.
@@ -160,6 +165,11 @@ public class DisplayManager
 
 		//Now in windowed mode.
 		fullScreen = false;
+		
+		//New window must be drawn in full.
+		DirtyRegions.markAllDirty();
+		//VolatileImages may not survive the mode change.
+		ImageManager.invalidateAccelerated();
 	}
 
 	//Used for setting up new JFrame.
@@ -12,6 +12,17 @@
  */
 package mizuEngine;
 
+import java.util.List;
+import java.util.ArrayList;
+
+import java.nio.ByteBuffer;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+
 //This class is still being developed!
 
 public class FileManager
@@ -32,6 +43,93 @@ public class FileManager
 		return fileManager;
 	}
 
+	//Returns a stream of the resource at path from the mounted AssetPacks,
+	//or from resources/path on the class path. Returns null if neither has it.
+	//The stream supports mark and reset.
+	public static InputStream openResource (String path)
+	{
+		//Mounted packs are read straight from memory.
+		ByteBuffer packed = AssetPack.findMounted(path);
+		if (packed != null)
+		{
+			return new ByteBufferInputStream(packed);
+		}
+		
+		//Gets stream from relative class path.
+		InputStream stream = FileManager.class.getClassLoader().getResourceAsStream("resources/" + path);
+		return stream == null ? null : new BufferedInputStream(stream);
+	}
+
+	//Returns every byte of the resource at path, like openResource, or null if it could not be read.
+	public static ByteBuffer readResource (String path)
+	{
+		//Mounted packs need no copy.
+		ByteBuffer packed = AssetPack.findMounted(path);
+		if (packed != null)
+		{
+			return packed;
+		}
+		
+		InputStream stream = openResource(path);
+		if (stream == null)
+		{
+			return null;
+		}
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] chunk = new byte[8192];
+		try
+		{
+			for (int read = stream.read(chunk); read >= 0; read = stream.read(chunk))
+			{
+				bytes.write(chunk, 0, read);
+			}
+		}
+		catch (IOException e)
+		{
+			System.out.println("File at \"" + path + "\" could not be read.");
+			return null;
+		}
+		finally
+		{
+			try {stream.close();}
+			catch (IOException e) {}
+		}
+		return ByteBuffer.wrap(bytes.toByteArray());
+	}
+
+	//Returns the lines of the text file at resources/path, or null if it could not be read.
+	public static List<String> readLines (String path)
+	{
+		InputStream stream = openResource(path);
+		if (stream == null)
+		{
+			System.out.println("File at \"" + path + "\" could not be found.");
+			return null;
+		}
+
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(stream));
+		try
+		{
+			for (String line = reader.readLine(); line != null; line = reader.readLine())
+			{
+				lines.add(line);
+			}
+		}
+		catch (IOException e)
+		{
+			System.out.println("File at \"" + path + "\" could not be read.");
+			lines = null;
+		}
+		finally
+		{
+			try {reader.close();}
+			catch (IOException e) {}
+		}
+		return lines;
+	}
+
 	//Between frame maintenance.
 	protected static void update ()
 	{
@@ -0,0 +1,110 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: FrameLimiter                                                    |
+| Date: 10/18/2026                                                      |
+| Description: This class paces the gameloop to a target frame rate.    |
+| Frame deadlines are kept in nanoseconds. Most of the wait is spent in |
+| Thread.sleep, which is coarse, so the last stretch is spent yielding  |
+| and finally spinning until the deadline is reached.                   |
+=========================================================================
+ */
+package mizuEngine;
+
+public class FrameLimiter
+{
+	//Below this much remaining time sleep is too coarse to trust.
+	private final long SLEEP_THRESHOLD = 2000000L;
+	//Below this much remaining time yield gives way to spinning.
+	private final long YIELD_THRESHOLD = 200000L;
+
+	//Nanoseconds per frame. 0 means uncapped.
+	private long frameTime;
+	//Deadline of the next frame.
+	private long nextFrame;
+
+	//FrameLimiter constructor.
+	public FrameLimiter (int targetFPS)
+	{
+		setTargetFPS(targetFPS);
+		reset(System.nanoTime());
+	}
+
+	//Sets frames per second. 0 or less runs uncapped.
+	public void setTargetFPS (int targetFPS)
+	{
+		if (targetFPS > 0)
+		{
+			setFrameTime(1000000000L / targetFPS);
+		}
+		else
+		{
+			setFrameTime(0);
+		}
+	}
+
+	//Sets the length of a frame in nanoseconds. 0 or less runs uncapped.
+	public void setFrameTime (long nanos)
+	{
+		frameTime = Math.max(0, nanos);
+	}
+
+	//Returns the length of a frame in nanoseconds.
+	public long getFrameTime ()
+	{
+		return frameTime;
+	}
+
+	//Starts counting frames from time.
+	public void reset (long time)
+	{
+		nextFrame = time;
+	}
+
+	//Waits until the next frame is due and returns the nanoseconds spent waiting.
+	public long sync ()
+	{
+		long start = System.nanoTime();
+
+		//Uncapped, never waits.
+		if (frameTime == 0)
+		{
+			nextFrame = start;
+			return 0;
+		}
+
+		nextFrame += frameTime;
+
+		//If more than a frame behind, stop trying to catch up.
+		if (start - nextFrame > frameTime)
+		{
+			nextFrame = start;
+			return 0;
+		}
+
+		long remaining = nextFrame - start;
+		while (remaining > 0)
+		{
+			//Whole milliseconds that can be slept, leaving SLEEP_THRESHOLD to yield and spin.
+			long millis = (remaining - SLEEP_THRESHOLD) / 1000000L;
+			if (millis > 0)
+			{
+				//Sleeps most of the remaining time.
+				try {Thread.sleep(millis);}
+				catch (InterruptedException ex) {}
+			}
+			else if (remaining > YIELD_THRESHOLD)
+			{
+				//Lets other threads run.
+				Thread.yield();
+			}
+			//Otherwise spins.
+
+			remaining = nextFrame - System.nanoTime();
+		}
+
+		return System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,173 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: FrameProfiler                                                   |
+| Date: 10/18/2026                                                      |
+| Description: This class times each phase of the gameloop in           |
+| nanoseconds and keeps a LatencyHistogram per phase, so frame time     |
+| spikes show up in the p99 and max instead of disappearing into an     |
+| average FPS. Results can be read through the getters or drawn as a    |
+| small overlay.                                                        |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.awt.Font;
+import java.awt.Color;
+import java.awt.Graphics2D;
+
+public class FrameProfiler
+{
+	//Allows only one FrameProfiler.
+	private static FrameProfiler frameProfiler;
+
+	//Gameloop phases.
+	public static final int CLEAR = 0;
+	public static final int UPDATE = 1;
+	public static final int RENDER = 2;
+	public static final int DEBUG = 3;
+	public static final int SHOW = 4;
+	public static final int SLEEP = 5;
+	public static final int FRAME = 6;
+	public static final int PHASES = 7;
+
+	//Phase names used by the overlay.
+	private static final String[] PHASE_NAMES = {"Clear", "Update", "Render", "Debug", "Show", "Sleep", "Frame"};
+
+	//Overlay spacing.
+	private static final int OVERLAY_WIDTH = 230;
+	private static final int OVERLAY_SPACING = 14;
+	private static final String OVERLAY_HEADER = " Phase     p50     p99     max";
+
+	//One histogram per phase.
+	private static LatencyHistogram[] histograms;
+	//True if phases are being timed.
+	private static boolean enabled;
+	//Used for overlay background and text.
+	private static Color overlayBackgroundColor;
+	private static DebugOverlay overlay;
+
+	//FrameProfiler constructor.
+	private FrameProfiler ()
+	{
+		histograms = new LatencyHistogram[PHASES];
+		for (int i = 0; i < PHASES; i++)
+		{
+			histograms[i] = new LatencyHistogram();
+		}
+		enabled = true;
+		overlayBackgroundColor = new Color(0.1f, 0.1f, 0.1f, 0.5f);
+		//Columns only line up in a monospaced font.
+		overlay = new DebugOverlay(new Font("Monospaced", Font.PLAIN, 11));
+	}
+
+	//Returns the frameProfiler.
+	public static FrameProfiler getFrameProfiler ()
+	{
+		//Checks to see if frameProfiler is null. If so, it creates one.
+		if (frameProfiler == null)
+		{
+			//Makes a single FrameProfiler.
+			frameProfiler = new FrameProfiler();
+		}
+		//Returns the frameProfiler.
+		return frameProfiler;
+	}
+
+	//Counts nanos spent in phase.
+	protected static void record (int phase, long nanos)
+	{
+		if (enabled)
+		{
+			histograms[phase].record(nanos);
+		}
+	}
+
+	//Returns the current time if profiling, otherwise 0.
+	protected static long now ()
+	{
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	//Returns the histogram kept for phase.
+	public static LatencyHistogram getHistogram (int phase)
+	{
+		return histograms[phase];
+	}
+
+	//Returns the nanoseconds half of phase's timings are at or below.
+	public static long getMedian (int phase)
+	{
+		return histograms[phase].getMedian();
+	}
+
+	//Returns the nanoseconds 99% of phase's timings are at or below.
+	public static long get99thPercentile (int phase)
+	{
+		return histograms[phase].getPercentile(0.99);
+	}
+
+	//Returns phase's longest timing in nanoseconds.
+	public static long getMax (int phase)
+	{
+		return histograms[phase].getMax();
+	}
+
+	//Returns phase's name.
+	public static String getPhaseName (int phase)
+	{
+		return PHASE_NAMES[phase];
+	}
+
+	//Forgets all timings.
+	public static void reset ()
+	{
+		for (int i = 0; i < PHASES; i++)
+		{
+			histograms[i].reset();
+		}
+	}
+
+	//Turns profiling on or off.
+	public static void setEnabled (boolean b)
+	{
+		enabled = b;
+	}
+
+	//Returns true if profiling.
+	public static boolean getEnabled ()
+	{
+		return enabled;
+	}
+
+	//Marks the area the overlay covers dirty.
+	protected static void markOverlayDirty (int canvasWidth)
+	{
+		DirtyRegions.markDirty(canvasWidth - OVERLAY_WIDTH, 0, OVERLAY_WIDTH, OVERLAY_SPACING * (PHASES + 2));
+	}
+
+	//Draws p50/p99/max in milliseconds for every phase, top right of the screen.
+	protected static void renderOverlay (Graphics2D g2d, int canvasWidth)
+	{
+		int x = canvasWidth - OVERLAY_WIDTH;
+
+		//Draws a transparent grey background.
+		g2d.setColor(overlayBackgroundColor);
+		g2d.fillRect(x, 0, OVERLAY_WIDTH, OVERLAY_SPACING * (PHASES + 2));
+
+		//Writes a line per phase.
+		overlay.begin();
+		overlay.add(OVERLAY_HEADER);
+		for (int i = 0; i < PHASES; i++)
+		{
+			overlay.beginLine().appendPadded(PHASE_NAMES[i], 6).appendMillis(getMedian(i), 8)
+							   .appendMillis(get99thPercentile(i), 8).appendMillis(getMax(i), 8);
+		}
+
+		//Sets color to white.
+		g2d.setColor(Color.white);
+		overlay.render(g2d, x + OVERLAY_SPACING / 2, OVERLAY_SPACING, OVERLAY_SPACING);
+	}
+}
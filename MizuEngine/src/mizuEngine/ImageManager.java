@@ -6,12 +6,11 @@
 | Name: ImageManager                                                    |
 | Date: 09/02/2011                                                      |
 | Description: This class is responsibility is finding and loading      |
-| images. It may be changed later to read .txt files that list all the  |
-| images' paths needed by a particular Scene, then monitor its loading  |
-| progress notifying the Scene when it has finished. The way this       |
-| class is designed, makes it so that only one ImageManager is created, |
-| and allows any other class to access its variables and methods by     |
-| making things static.                                                 |
+| images. Every load of a path, from a Scene or from AssetLoader's      |
+| workers reading a manifest, joins the same decode, so an image is     |
+| decoded once and cached once. The way this class is designed, makes   |
+| it so that only one ImageManager is created, and allows any other     |
+| class to access its variables and methods by making things static.    |
 =========================================================================
 */
 package mizuEngine;
@@ -20,10 +19,22 @@ import java.awt.Image;
 import java.awt.Transparency;
 import java.awt.GraphicsEnvironment;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.awt.GraphicsConfiguration;
 
-import java.net.URL;
-import java.util.Hashtable;
+import java.io.InputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.imageio.ImageIO;
 
 public class ImageManager
@@ -31,9 +42,40 @@ public class ImageManager
 	//Allows only one AudioManager
 	private static ImageManager imageManager;
 	
-	//Hashtable keeps all loaded images paired with a path key.
-	private static Hashtable<String, Image> imageHashtable;
-	private static BufferedImage bufferedImage;
+	//Map keeps all loaded images paired with a path key. Read without locking.
+	private static ConcurrentHashMap<String, CachedImage> imageMap;
+	//Same images, least recently used first as of their last move. Only used under writeLock.
+	private static LinkedHashMap<String, CachedImage> lruMap;
+	//Map keeps images being decoded, so every thread asking for one waits on the same decode.
+	private static ConcurrentHashMap<String, FutureTask<Image>> loadingMap;
+	//Held while adding, evicting, removing or pinning images.
+	private static final Object writeLock = new Object();
+	
+	//Bytes the cached images may use before the least recently used are evicted.
+	private static volatile long memoryBudget;
+	private static volatile long usedBytes;
+	//Counts up every time an image is used, to tell which was used least recently.
+	private static AtomicLong useCounter;
+	//Cache statistics.
+	private static AtomicLong hits;
+	private static AtomicLong misses;
+	private static volatile long evictions;
+	
+	//Map keeps images packed into atlases paired with a path key.
+	private static ConcurrentHashMap<String, AtlasRegion> regionMap;
+	//Map keeps images being decoded for an atlas, so each is decoded and packed once.
+	private static ConcurrentHashMap<String, FutureTask<AtlasRegion>> regionLoadingMap;
+	//Atlas sheets, oldest first.
+	private static List<TextureAtlas> atlases;
+	//Width and height of new sheets.
+	private static int atlasSize;
+	
+	//Map keeps images kept in video memory paired with a path key.
+	private static final ConcurrentHashMap<String, AcceleratedImage> acceleratedMap = new ConcurrentHashMap<String, AcceleratedImage>();
+	//Map keeps images being decoded for video memory, so each is decoded once.
+	private static ConcurrentHashMap<String, FutureTask<AcceleratedImage>> acceleratedLoadingMap;
+	//Same images, walked every frame without allocating. Made up front, since display changes use it.
+	private static final List<AcceleratedImage> acceleratedList = new ArrayList<AcceleratedImage>();
 	
 	//Returns the imageManager.
 	public static ImageManager getImageManager ()
@@ -43,33 +85,599 @@ public class ImageManager
 		{
 			//Makes a single ImageManager.
 			imageManager = new ImageManager();
-			//Makes a single Hashtable.
-			imageHashtable = new Hashtable<String, Image>();
+			//Decodes from memory instead of through temporary files.
+			ImageIO.setUseCache(false);
+			//Makes a single map.
+			imageMap = new ConcurrentHashMap<String, CachedImage>();
+			lruMap = new LinkedHashMap<String, CachedImage>();
+			loadingMap = new ConcurrentHashMap<String, FutureTask<Image>>();
+			//256 MB by default.
+			memoryBudget = 256L * 1024 * 1024;
+			usedBytes = 0;
+			useCounter = new AtomicLong();
+			hits = new AtomicLong();
+			misses = new AtomicLong();
+			evictions = 0;
+			//No atlases until an image is packed.
+			regionMap = new ConcurrentHashMap<String, AtlasRegion>();
+			regionLoadingMap = new ConcurrentHashMap<String, FutureTask<AtlasRegion>>();
+			atlases = new ArrayList<TextureAtlas>();
+			atlasSize = 1024;
+			//No VolatileImages until one is loaded.
+			acceleratedLoadingMap = new ConcurrentHashMap<String, FutureTask<AcceleratedImage>>();
 		}
 		//Returns the imageManager.
 		return imageManager;
 	}
 	
-	//Returns image located at imagePath.
-	public static Image loadImage(String imagePath)
+	//Returns image located at imagePath, or null if it could not be loaded.
+	public static Image loadImage(final String imagePath)
+	{
+		return loadImage(imagePath, false);
+	}
+	
+	//Loads image at imagePath for a manifest, keeping it cached until the next Scene loads.
+	//Returns null if it could not be loaded. Safe to call from loader threads.
+	protected static Image preload (String imagePath)
+	{
+		return loadImage(imagePath, true);
+	}
+	
+	//Returns image located at imagePath, marking it preloaded if asked.
+	private static Image loadImage(final String imagePath, boolean preload)
 	{
-		//Hashtable checks to see if Image has already been loaded.
-		if (imageHashtable.containsKey(imagePath))
+		//Map checks to see if Image has already been loaded.
+		CachedImage cached = imageMap.get(imagePath);
+		if (cached != null)
 		{
-			return (Image)imageHashtable.get(imagePath);
+			hits.incrementAndGet();
+			cached.lastUsed = useCounter.incrementAndGet();
+			if (preload)
+			{
+				markPreloaded(imagePath, cached.image);
+			}
+			return cached.image;
 		}
+		misses.incrementAndGet();
 		
-		//Clears the BufferedImage
-		bufferedImage = null;
+		//Joins a decode already in flight, or starts one.
+		FutureTask<Image> task = new FutureTask<Image>(new Callable<Image>()
+		{
+			public Image call ()
+			{
+				return readImage(imagePath);
+			}
+		});
+		FutureTask<Image> inFlight = loadingMap.putIfAbsent(imagePath, task);
+		if (inFlight == null)
+		{
+			inFlight = task;
+			
+			//A decode may have finished between the first check and now.
+			cached = imageMap.get(imagePath);
+			if (cached != null)
+			{
+				loadingMap.remove(imagePath, task);
+				if (preload)
+				{
+					markPreloaded(imagePath, cached.image);
+				}
+				return cached.image;
+			}
+			
+			//Decodes on this thread, outside every lock.
+			task.run();
+		}
+		
+		Image image = waitFor(imagePath, inFlight);
+		
+		if (inFlight == task)
+		{
+			//Adds newly loaded image to the map before anyone else stops waiting on it.
+			if (image != null)
+			{
+				synchronized (writeLock)
+				{
+					if (!imageMap.containsKey(imagePath))
+					{
+						cache(imagePath, image);
+					}
+					if (preload)
+					{
+						markPreloaded(imagePath, image);
+					}
+					evict();
+				}
+			}
+			loadingMap.remove(imagePath, task);
+		}
+		else if (preload && image != null)
+		{
+			//The thread that decoded it may not have cached it yet.
+			markPreloaded(imagePath, image);
+		}
+		
+		//Returns the image.
+		return image;
+	}
+	
+	//Returns what task decoded, waiting for it if needed.
+	private static <T> T waitFor (String imagePath, FutureTask<T> task)
+	{
+		boolean interrupted = false;
+		try
+		{
+			while (true)
+			{
+				try
+				{
+					return task.get();
+				}
+				catch (InterruptedException e)
+				{
+					//Keeps waiting, then passes the interrupt on.
+					interrupted = true;
+				}
+			}
+		}
+		catch (ExecutionException e)
+		{
+			System.out.println("Image at \"" + imagePath + "\" could not be loaded.");
+			return null;
+		}
+		finally
+		{
+			if (interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	//Keeps imagePath from being evicted until unpinned as many times.
+	public static void pin (String imagePath)
+	{
+		synchronized (writeLock)
+		{
+			CachedImage cached = imageMap.get(imagePath);
+			if (cached != null)
+			{
+				cached.pins++;
+			}
+		}
+	}
+	
+	//Lets imagePath be evicted again once every pin is removed.
+	public static void unpin (String imagePath)
+	{
+		synchronized (writeLock)
+		{
+			CachedImage cached = imageMap.get(imagePath);
+			if (cached != null && cached.pins > 0)
+			{
+				cached.pins--;
+			}
+			//Evicts anything left over budget while it was pinned.
+			evict();
+		}
+	}
+	
+	//Returns a handle that keeps the image at imagePath cached until released.
+	public static Asset<Image> acquire (String imagePath)
+	{
+		Asset<Image> asset = new Asset<Image>(imagePath)
+		{
+			protected Image retain (String path)
+			{
+				return ImageManager.retain(path);
+			}
+			
+			protected void drop (String path)
+			{
+				unpin(path);
+			}
+		};
+		asset.acquire();
+		return asset;
+	}
+	
+	//Loads and pins the image at imagePath.
+	private static Image retain (String imagePath)
+	{
+		Image image = loadImage(imagePath);
+		if (image == null)
+		{
+			return null;
+		}
+		synchronized (writeLock)
+		{
+			//Puts it back if a loader thread's publish evicted it already.
+			CachedImage cached = imageMap.get(imagePath);
+			if (cached == null)
+			{
+				cache(imagePath, image);
+				cached = imageMap.get(imagePath);
+			}
+			cached.pins++;
+			//The Asset's pin takes over from the preload.
+			cached.preloaded = false;
+		}
+		return image;
+	}
+	
+	//Adds image to the map. Hold writeLock.
+	private static void cache (String imagePath, Image image)
+	{
+		CachedImage cached = new CachedImage(image);
+		cached.lastUsed = useCounter.incrementAndGet();
+		cached.orderedUse = cached.lastUsed;
+		imageMap.put(imagePath, cached);
+		lruMap.put(imagePath, cached);
+		usedBytes += cached.bytes;
+	}
+	
+	//Evicts least recently used unpinned images until under budget. Hold writeLock.
+	private static void evict ()
+	{
+		//Images used since they were last moved, which go to the recently used end.
+		List<String> usedAgain = new ArrayList<String>();
+		do
+		{
+			usedAgain.clear();
+			
+			//Walks from the least recently used end, skipping pinned and preloaded images.
+			Iterator<Map.Entry<String, CachedImage>> iterator = lruMap.entrySet().iterator();
+			while (usedBytes > memoryBudget && iterator.hasNext())
+			{
+				Map.Entry<String, CachedImage> entry = iterator.next();
+				CachedImage cached = entry.getValue();
+				if (cached.lastUsed != cached.orderedUse)
+				{
+					iterator.remove();
+					usedAgain.add(entry.getKey());
+				}
+				else if (cached.pins == 0 && !cached.preloaded)
+				{
+					iterator.remove();
+					free(entry.getKey());
+					evictions++;
+				}
+			}
+			
+			//Moves them after everything else, so reads never have to lock.
+			for (int i = 0; i < usedAgain.size(); i++)
+			{
+				CachedImage cached = imageMap.get(usedAgain.get(i));
+				cached.orderedUse = cached.lastUsed;
+				lruMap.put(usedAgain.get(i), cached);
+			}
+		}
+		//Walks again if images it moved may still be evicted.
+		while (usedBytes > memoryBudget && !usedAgain.isEmpty());
+	}
+	
+	//Removes imagePath from the map and frees its accelerated copy. Hold writeLock.
+	private static void remove (String imagePath)
+	{
+		lruMap.remove(imagePath);
+		free(imagePath);
+	}
+	
+	//Removes imagePath from imageMap once it is out of lruMap. Hold writeLock.
+	private static void free (String imagePath)
+	{
+		CachedImage cached = imageMap.remove(imagePath);
+		if (cached != null)
+		{
+			usedBytes -= cached.bytes;
+			//Anyone still holding the image can draw it, it is just no longer in video memory.
+			cached.image.flush();
+		}
+	}
+	
+	//Returns image located at imagePath packed into an atlas sheet.
+	public static AtlasRegion loadRegion (final String imagePath)
+	{
+		//Map checks to see if Image has already been packed.
+		AtlasRegion region = regionMap.get(imagePath);
+		if (region != null)
+		{
+			return region;
+		}
+		
+		//Joins a decode already in flight, or starts one.
+		FutureTask<AtlasRegion> task = new FutureTask<AtlasRegion>(new Callable<AtlasRegion>()
+		{
+			public AtlasRegion call ()
+			{
+				//Reads in the image outside every lock.
+				BufferedImage bufferedImage = decodeImage(imagePath);
+				return bufferedImage == null ? null : pack(imagePath, bufferedImage);
+			}
+		});
+		FutureTask<AtlasRegion> inFlight = regionLoadingMap.putIfAbsent(imagePath, task);
+		if (inFlight == null)
+		{
+			inFlight = task;
+			
+			//A pack may have finished between the first check and now.
+			region = regionMap.get(imagePath);
+			if (region != null)
+			{
+				regionLoadingMap.remove(imagePath, task);
+				return region;
+			}
+			
+			//Decodes on this thread.
+			task.run();
+		}
+		
+		region = waitFor(imagePath, inFlight);
+		
+		if (inFlight == task)
+		{
+			regionLoadingMap.remove(imagePath, task);
+		}
 		
-		//Gets location of resource.
-		URL url = imageManager.getClass().getClassLoader().getResource("resources/images/" + imagePath);
+		//Returns the region.
+		return region;
+	}
+	
+	//Packs a decoded image into the first sheet it fits and adds it to regionMap.
+	private static AtlasRegion pack (String imagePath, BufferedImage bufferedImage)
+	{
+		//Packing changes the sheets, so only one thread packs at a time.
+		synchronized (atlases)
+		{
+			AtlasRegion region = null;
+			
+			//Tries every sheet, oldest first.
+			for (int i = 0; i < atlases.size() && region == null; i++)
+			{
+				region = atlases.get(i).pack(bufferedImage);
+			}
+			
+			if (region == null)
+			{
+				//Starts a new sheet, big enough if the image is larger than a sheet.
+				TextureAtlas atlas = new TextureAtlas(Math.max(atlasSize, Math.max(bufferedImage.getWidth(), bufferedImage.getHeight()) + 1));
+				atlases.add(atlas);
+				region = atlas.pack(bufferedImage);
+			}
+			
+			//Adds newly packed region to the map before anyone else stops waiting on it.
+			regionMap.put(imagePath, region);
+			return region;
+		}
+	}
+	
+	//Returns image located at imagePath kept in video memory.
+	public static AcceleratedImage loadAccelerated (final String imagePath)
+	{
+		//Map checks to see if it has already been loaded.
+		AcceleratedImage acceleratedImage = acceleratedMap.get(imagePath);
+		if (acceleratedImage != null)
+		{
+			return acceleratedImage;
+		}
+		
+		//Joins a decode already in flight, or starts one. The VolatileImage is made on the next validate.
+		FutureTask<AcceleratedImage> task = new FutureTask<AcceleratedImage>(new Callable<AcceleratedImage>()
+		{
+			public AcceleratedImage call ()
+			{
+				BufferedImage bufferedImage = decodeImage(imagePath);
+				return bufferedImage == null ? null : new AcceleratedImage(bufferedImage);
+			}
+		});
+		FutureTask<AcceleratedImage> inFlight = acceleratedLoadingMap.putIfAbsent(imagePath, task);
+		if (inFlight == null)
+		{
+			inFlight = task;
+			
+			//A decode may have finished between the first check and now.
+			acceleratedImage = acceleratedMap.get(imagePath);
+			if (acceleratedImage != null)
+			{
+				acceleratedLoadingMap.remove(imagePath, task);
+				return acceleratedImage;
+			}
+			
+			//Decodes on this thread, outside every lock.
+			task.run();
+		}
+		
+		acceleratedImage = waitFor(imagePath, inFlight);
+		
+		if (inFlight == task)
+		{
+			//Adds newly loaded image to the map before anyone else stops waiting on it.
+			if (acceleratedImage != null)
+			{
+				synchronized (acceleratedList)
+				{
+					acceleratedMap.put(imagePath, acceleratedImage);
+					acceleratedList.add(acceleratedImage);
+				}
+			}
+			acceleratedLoadingMap.remove(imagePath, task);
+		}
+		
+		//Returns the image.
+		return acceleratedImage;
+	}
+	
+	//Validates every AcceleratedImage against gc. Returns true if any had to be drawn again.
+	protected static boolean validateAccelerated (GraphicsConfiguration gc)
+	{
+		boolean restored = false;
+		synchronized (acceleratedList)
+		{
+			for (int i = 0; i < acceleratedList.size(); i++)
+			{
+				restored |= acceleratedList.get(i).validate(gc);
+			}
+		}
+		return restored;
+	}
+	
+	//Makes every AcceleratedImage again on the next validate, like after a display mode change.
+	protected static void invalidateAccelerated ()
+	{
+		synchronized (acceleratedList)
+		{
+			for (int i = 0; i < acceleratedList.size(); i++)
+			{
+				acceleratedList.get(i).invalidate();
+			}
+		}
+	}
+	
+	//Removes AcceleratedImage from acceleratedMap and frees its VolatileImage.
+	public static void unloadAccelerated (String imagePath)
+	{
+		synchronized (acceleratedList)
+		{
+			AcceleratedImage acceleratedImage = acceleratedMap.remove(imagePath);
+			if (acceleratedImage != null)
+			{
+				acceleratedList.remove(acceleratedImage);
+				acceleratedImage.flush();
+			}
+		}
+	}
+	
+	//Reads image at imagePath and converts it into an accelerated Image without caching it.
+	//Safe to call from loader threads.
+	protected static Image readImage (String imagePath)
+	{
+		//Reads in the image.
+		BufferedImage bufferedImage = decodeImage(imagePath);
+		if (bufferedImage == null)
+		{
+			return null;
+		}
+		
+		//Converts the image into an accelerated Image, keeping its alpha.
+		Image image = createAcceleratedImage(bufferedImage.getWidth(), bufferedImage.getHeight(), bufferedImage.getTransparency());
+		image.getGraphics().drawImage(bufferedImage, 0, 0, null);
+		
+		return image;
+	}
+	
+	//Caches image at imagePath if it is not, and keeps it cached until the next Scene loads.
+	private static void markPreloaded (String imagePath, Image image)
+	{
+		synchronized (writeLock)
+		{
+			CachedImage cached = imageMap.get(imagePath);
+			if (cached == null)
+			{
+				cache(imagePath, image);
+				cached = imageMap.get(imagePath);
+			}
+			cached.preloaded = true;
+		}
+	}
+	
+	//Reports if a manifest's preloaded images did not fit in the budget. Called once a manifest has loaded.
+	protected static void checkPreloaded ()
+	{
+		synchronized (writeLock)
+		{
+			evict();
+			//Only pinned and preloaded images are left, so the manifest is too big.
+			if (usedBytes > memoryBudget)
+			{
+				System.out.println("Preloaded images are " + (usedBytes - memoryBudget) / 1024 +
+								   " KB over the image memory budget.");
+			}
+		}
+	}
+	
+	//Lets preloaded images no Scene acquired be evicted. Called after a Scene loads.
+	protected static void releasePreloaded ()
+	{
+		synchronized (writeLock)
+		{
+			for (CachedImage cached : imageMap.values())
+			{
+				cached.preloaded = false;
+			}
+			evict();
+		}
+	}
+	
+	//Reads image at imagePath, from DiskCache's decoded pixels if it is on.
+	private static BufferedImage decodeImage (String imagePath)
+	{
+		if (!DiskCache.isEnabled())
+		{
+			return decodeImage(imagePath, FileManager.openResource("images/" + imagePath));
+		}
+		
+		ByteBuffer source = FileManager.readResource("images/" + imagePath);
+		if (source == null)
+		{
+			//Notifies Console that the Image at imagePath could not be loaded.
+			System.out.println("Image at \"" + imagePath + "\" could not be loaded.");
+			return null;
+		}
+		
+		//Cached pixels are only used if the image has not changed since.
+		byte[] hash = DiskCache.hash(source);
+		ByteBuffer pixels = DiskCache.read("images/" + imagePath, hash);
+		if (pixels != null)
+		{
+			return readPixels(pixels);
+		}
+		
+		BufferedImage bufferedImage = decodeImage(imagePath, new ByteBufferInputStream(source));
+		if (bufferedImage != null)
+		{
+			DiskCache.write("images/" + imagePath, hash, writePixels(bufferedImage));
+		}
+		return bufferedImage;
+	}
+	
+	//Returns width, height, transparency and ARGB pixels of bufferedImage for DiskCache.
+	private static ByteBuffer writePixels (BufferedImage bufferedImage)
+	{
+		int width = bufferedImage.getWidth();
+		int height = bufferedImage.getHeight();
+		ByteBuffer pixels = ByteBuffer.allocate(12 + width * height * 4);
+		pixels.putInt(width);
+		pixels.putInt(height);
+		pixels.putInt(bufferedImage.getTransparency());
+		pixels.asIntBuffer().put(bufferedImage.getRGB(0, 0, width, height, null, 0, width));
+		pixels.rewind();
+		return pixels;
+	}
+	
+	//Returns the image writePixels wrote, copied straight into its raster.
+	private static BufferedImage readPixels (ByteBuffer pixels)
+	{
+		int width = pixels.getInt();
+		int height = pixels.getInt();
+		//Opaque images stay opaque. Both types keep a pixel in one int.
+		int type = pixels.getInt() == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+		BufferedImage bufferedImage = new BufferedImage(width, height, type);
+		int[] raster = ((DataBufferInt)bufferedImage.getRaster().getDataBuffer()).getData();
+		pixels.asIntBuffer().get(raster);
+		return bufferedImage;
+	}
+	
+	//Decodes image at imagePath from stream.
+	private static BufferedImage decodeImage (String imagePath, InputStream stream)
+	{
+		//Clears the BufferedImage
+		BufferedImage bufferedImage = null;
 		
 		//Tries to load image.
 		try
 		{
 			//Reads in file to buffereImage.
-			bufferedImage = ImageIO.read(url);
+			bufferedImage = ImageIO.read(stream);
 		}
 		catch (Exception e)
 		{
@@ -78,22 +686,133 @@ public class ImageManager
 			//Creates a blank image to return instead of null.
 			//bufferedImage = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
 		}
+		finally
+		{
+			//Closed even if the decoder threw.
+			try {if (stream != null) stream.close();}
+			catch (IOException e) {}
+		}
 		
-		//Converts the image into an accelerated Image.
-		GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
-		Image image = gc.createCompatibleImage(bufferedImage.getWidth(), bufferedImage.getHeight(), Transparency.BITMASK);
-		image.getGraphics().drawImage(bufferedImage, 0, 0, null);
-		
-		//Adds newly loaded image to the Hashtable.
-		imageHashtable.put(imagePath, image);
+		return bufferedImage;
+	}
+	
+	//Returns a blank translucent image the screen can draw quickly.
+	protected static Image createAcceleratedImage (int width, int height)
+	{
+		return createAcceleratedImage(width, height, Transparency.TRANSLUCENT);
+	}
+	
+	//Returns a blank image with transparency the screen can draw quickly.
+	protected static Image createAcceleratedImage (int width, int height, int transparency)
+	{
+		if (GraphicsEnvironment.isHeadless())
+		{
+			//There is no screen to be compatible with when headless.
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
 		
-		//Returns the image.
-		return image;
+		GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+		return gc.createCompatibleImage(width, height, transparency);
+	}
+	
+	//Sets the width and height of new atlas sheets.
+	public static void setAtlasSize (int size)
+	{
+		atlasSize = size;
+	}
+	
+	//Returns how many atlas sheets have been made.
+	public static int getAtlasCount ()
+	{
+		return atlases.size();
+	}
+	
+	//Removes every atlas sheet and the regions packed into them.
+	public static void unloadAtlases ()
+	{
+		synchronized (atlases)
+		{
+			regionMap.clear();
+			atlases.clear();
+		}
 	}
 	
-	//Removes Image from imageHashtable
+	//Removes Image from imageMap
 	public static void unload (String imagePath)
 	{
-		imageHashtable.remove(imagePath);
+		synchronized (writeLock)
+		{
+			remove(imagePath);
+		}
+	}
+	
+	//Sets how many bytes cached images may use, evicting if over.
+	public static void setMemoryBudget (long bytes)
+	{
+		synchronized (writeLock)
+		{
+			memoryBudget = bytes;
+			evict();
+		}
+	}
+	
+	//Cache getters.
+	public static long getMemoryBudget ()
+	{
+		return memoryBudget;
+	}
+	public static long getUsedBytes ()
+	{
+		return usedBytes;
+	}
+	public static long getHits ()
+	{
+		return hits.get();
+	}
+	public static long getMisses ()
+	{
+		return misses.get();
+	}
+	public static long getEvictions ()
+	{
+		return evictions;
+	}
+	
+	//An image in the cache and what is known about its use.
+	private static class CachedImage
+	{
+		private final Image image;
+		//Bytes the image takes up.
+		private final long bytes;
+		//useCounter when last used. Written without locking.
+		private volatile long lastUsed;
+		//lastUsed when it was put at its place in lruMap. Hold writeLock.
+		private long orderedUse;
+		//Times pinned, one for each held Asset.
+		private int pins;
+		//True from publish until the next Scene loads, so it is not evicted before it is acquired.
+		private boolean preloaded;
+		
+		private CachedImage (Image image)
+		{
+			this.image = image;
+			bytes = sizeOf(image);
+			lastUsed = 0;
+			orderedUse = 0;
+			pins = 0;
+			preloaded = false;
+		}
+		
+		//Returns the bytes an image takes up.
+		private static long sizeOf (Image image)
+		{
+			//Assumes 4 bytes a pixel unless the image says otherwise.
+			int bytesPerPixel = 4;
+			if (image instanceof BufferedImage)
+			{
+				bytesPerPixel = Math.max(1, ((BufferedImage)image).getColorModel().getPixelSize() / 8);
+			}
+			return (long)image.getWidth(null) * image.getHeight(null) * bytesPerPixel;
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,237 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: InputActions                                                    |
+| Date: 10/18/2026                                                      |
+| Description: This class maps named actions, like "jump", to keys and  |
+| mouse buttons. An action is registered once for an int id, and scenes |
+| poll that id each frame, so a game never checks a key directly and    |
+| its controls can be rebound or reloaded while it runs.                |
+|                                                                       |
+| Notes: Action states are bitsets worked out once per frame, after     |
+| input is drained, so polling is a bit test with no lookups. Register  |
+| and bind from the game thread.                                        |
+|                                                                       |
+| Format: One action per line, "name = F1, SPACE, MOUSE1". Keys are     |
+| KeyEvent VK_ names without the VK_, and mouse buttons are MOUSE and   |
+| the button number. Lines starting with # are comments.                |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.util.Map;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Arrays;
+import java.awt.event.KeyEvent;
+
+public class InputActions
+{
+	//Actions that can be registered.
+	public static final int MAX_ACTIONS = 256;
+	//Keys that can be bound to one action.
+	public static final int MAX_KEYS = 4;
+
+	//Action names and ids.
+	private static final String[] names = new String[MAX_ACTIONS];
+	private static final Map<String, Integer> ids = new HashMap<String, Integer>();
+	private static int count = 0;
+
+	//Keys bound to each action.
+	private static final int[][] keys = new int[MAX_ACTIONS][MAX_KEYS];
+	private static final int[] keyCounts = new int[MAX_ACTIONS];
+	//Mouse buttons bound to each action, one bit per button number.
+	private static final int[] buttons = new int[MAX_ACTIONS];
+
+	//Bitsets of action states this frame, 64 actions to a long.
+	private static final long[] held = new long[MAX_ACTIONS / 64];
+	private static final long[] pressed = new long[MAX_ACTIONS / 64];
+	private static final long[] released = new long[MAX_ACTIONS / 64];
+
+	//Returns the id of the action called name, registering it if it is new.
+	public static int register (String name)
+	{
+		Integer id = ids.get(name);
+		if (id != null)
+		{
+			return id;
+		}
+		if (count == MAX_ACTIONS)
+		{
+			System.out.println("Action \"" + name + "\" could not be registered. There are already " + MAX_ACTIONS + ".");
+			return -1;
+		}
+
+		names[count] = name;
+		ids.put(name, count);
+		return count++;
+	}
+
+	//Returns the id of the action called name, or -1 if it is not registered.
+	public static int getId (String name)
+	{
+		Integer id = ids.get(name);
+		return id == null ? -1 : id;
+	}
+
+	//Returns the name of action.
+	public static String getName (int action)
+	{
+		return names[action];
+	}
+
+	//Binds key, like KeyEvent.VK_SPACE, to action.
+	public static void bindKey (int action, int key)
+	{
+		if (action < 0 || action >= count)
+			return;
+
+		for (int i = 0; i < keyCounts[action]; i++)
+		{
+			if (keys[action][i] == key)
+				return;
+		}
+		if (keyCounts[action] == MAX_KEYS)
+		{
+			System.out.println("Action \"" + names[action] + "\" already has " + MAX_KEYS + " keys.");
+			return;
+		}
+		keys[action][keyCounts[action]++] = key;
+	}
+
+	//Binds mouse button, like MouseEvent.BUTTON1, to action.
+	public static void bindButton (int action, int button)
+	{
+		if (action < 0 || action >= count)
+			return;
+
+		buttons[action] |= 1 << (button & 31);
+	}
+
+	//Removes every key and button bound to action.
+	public static void unbind (int action)
+	{
+		if (action < 0 || action >= count)
+			return;
+
+		keyCounts[action] = 0;
+		buttons[action] = 0;
+	}
+
+	//Reads bindings from the text file at resources/path. Every action it names is
+	//registered and loses its old bindings. Returns false if the file could not be read.
+	public static boolean loadBindings (String path)
+	{
+		List<String> lines = FileManager.readLines(path);
+		if (lines == null)
+		{
+			return false;
+		}
+
+		for (String line : lines)
+		{
+			line = line.trim();
+			int equals = line.indexOf('=');
+			//Skips blank lines and comments.
+			if (line.length() == 0 || line.startsWith("#"))
+				continue;
+			if (equals < 0)
+			{
+				System.out.println("Binding \"" + line + "\" in \"" + path + "\" has no =.");
+				continue;
+			}
+
+			int action = register(line.substring(0, equals).trim());
+			unbind(action);
+			for (String input : line.substring(equals + 1).split(","))
+			{
+				bind(action, input.trim().toUpperCase(), path);
+			}
+		}
+		return true;
+	}
+
+	//Binds the key or button called input to action.
+	private static void bind (int action, String input, String path)
+	{
+		if (input.length() == 0)
+			return;
+
+		try
+		{
+			if (input.startsWith("MOUSE"))
+			{
+				bindButton(action, Integer.parseInt(input.substring(5)));
+			}
+			else
+			{
+				bindKey(action, KeyEvent.class.getField("VK_" + input).getInt(null));
+			}
+		}
+		catch (Exception e)
+		{
+			System.out.println("Binding \"" + input + "\" in \"" + path + "\" is not a key or mouse button.");
+		}
+	}
+
+	//Works out every action's state from this frame's input. Called once per frame.
+	protected static void update ()
+	{
+		Arrays.fill(held, 0L);
+		Arrays.fill(pressed, 0L);
+		Arrays.fill(released, 0L);
+
+		for (int action = 0; action < count; action++)
+		{
+			boolean isHeld = false;
+			boolean wasPressed = false;
+			boolean wasReleased = false;
+
+			for (int i = 0; i < keyCounts[action]; i++)
+			{
+				int key = keys[action][i];
+				isHeld |= KeyboardManager.isPressed(key);
+				wasPressed |= KeyboardManager.wasPressed(key);
+				wasReleased |= KeyboardManager.wasReleased(key);
+			}
+			for (int mask = buttons[action]; mask != 0; mask &= mask - 1)
+			{
+				int button = Integer.numberOfTrailingZeros(mask);
+				isHeld |= MouseManager.isButtonHeld(button);
+				wasPressed |= MouseManager.wasButtonPressed(button);
+				wasReleased |= MouseManager.wasButtonReleased(button);
+			}
+
+			long bit = 1L << action;
+			if (isHeld) held[action >>> 6] |= bit;
+			if (wasPressed) pressed[action >>> 6] |= bit;
+			if (wasReleased) released[action >>> 6] |= bit;
+		}
+	}
+
+	//Returns true if any input bound to action is held.
+	public static boolean isHeld (int action)
+	{
+		return action >= 0 && (held[action >>> 6] & (1L << action)) != 0;
+	}
+
+	//Returns true if any input bound to action was pressed this frame.
+	public static boolean wasPressed (int action)
+	{
+		return action >= 0 && (pressed[action >>> 6] & (1L << action)) != 0;
+	}
+
+	//Returns true if any input bound to action was released this frame.
+	public static boolean wasReleased (int action)
+	{
+		return action >= 0 && (released[action >>> 6] & (1L << action)) != 0;
+	}
+
+	//Returns how many actions are registered.
+	public static int getCount ()
+	{
+		return count;
+	}
+}
@@ -0,0 +1,153 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: InputEventQueue                                                 |
+| Date: 10/18/2026                                                      |
+| Description: This class carries keyboard and mouse events from the    |
+| AWT event thread to the game thread. The listeners only push events,  |
+| stamped with when they happened and when they arrived, and the game   |
+| thread drains them into KeyboardManager and MouseManager at the start |
+| of each update, so every frame sees one consistent set of input and   |
+| no press or release is lost between frames.                           |
+|                                                                       |
+| Notes: The ring is a fixed set of arrays, so pushing never allocates. |
+| Only the event thread writes tail and only the game thread writes     |
+| head, so it needs no lock. 4096 events is seconds of 1000 Hz mouse    |
+| input; an event pushed while the ring is full is dropped and counted. |
+=========================================================================
+ */
+package mizuEngine;
+
+public class InputEventQueue
+{
+	//Event types.
+	protected static final int KEY_PRESSED = 0;
+	protected static final int KEY_RELEASED = 1;
+	protected static final int MOUSE_MOVED = 2;
+	protected static final int MOUSE_DRAGGED = 3;
+	protected static final int MOUSE_PRESSED = 4;
+	protected static final int MOUSE_RELEASED = 5;
+	protected static final int MOUSE_WHEEL = 6;
+	protected static final int MOUSE_ENTERED = 7;
+	protected static final int MOUSE_EXITED = 8;
+
+	//Events the ring holds, a power of two.
+	public static final int CAPACITY = 4096;
+	private static final int MASK = CAPACITY - 1;
+
+	//Event arrays, one slot per event. Code is a key code, button or wheel rotation.
+	private static final int[] types = new int[CAPACITY];
+	private static final int[] codes = new int[CAPACITY];
+	private static final int[] xs = new int[CAPACITY];
+	private static final int[] ys = new int[CAPACITY];
+	//When the event happened, from the event, in milliseconds.
+	private static final long[] whens = new long[CAPACITY];
+	//When the listener got the event, in nanoTime.
+	private static final long[] arrivals = new long[CAPACITY];
+
+	//Events pushed and drained since the start. Written by one thread each.
+	private static volatile long tail = 0;
+	private static volatile long head = 0;
+
+	//Events dropped because the ring was full. Written by the event thread.
+	private static volatile long dropped = 0;
+	//Events drained by the last drain.
+	private static int lastCount = 0;
+	//Arrival of the oldest event in the last drain, or 0 if it drained none.
+	private static long lastArrival = 0;
+	//When that event happened, in milliseconds.
+	private static long lastWhen = 0;
+
+	//Pushes an event. Called on the event thread.
+	protected static void push (int type, int code, int x, int y, long when)
+	{
+		long arrival = System.nanoTime();
+		long t = tail;
+		if (t - head >= CAPACITY)
+		{
+			dropped++;
+			return;
+		}
+
+		int i = (int)(t & MASK);
+		types[i] = type;
+		codes[i] = code;
+		xs[i] = x;
+		ys[i] = y;
+		whens[i] = when;
+		arrivals[i] = arrival;
+		//Publishes the slot.
+		tail = t + 1;
+	}
+
+	//Hands every event pushed so far to the managers, oldest first. Called on the game thread.
+	protected static void drain ()
+	{
+		long h = head;
+		long t = tail;
+		lastCount = (int)(t - h);
+		lastArrival = 0;
+		lastWhen = 0;
+
+		for (; h < t; h++)
+		{
+			int i = (int)(h & MASK);
+			if (lastArrival == 0)
+			{
+				lastArrival = arrivals[i];
+				lastWhen = whens[i];
+			}
+
+			switch (types[i])
+			{
+				case KEY_PRESSED:
+				case KEY_RELEASED:
+					KeyboardManager.apply(types[i], codes[i]);
+					break;
+				default:
+					MouseManager.apply(types[i], codes[i], xs[i], ys[i]);
+					break;
+			}
+		}
+		//Frees the slots.
+		head = t;
+	}
+
+	//Drops every waiting event. Called on the game thread.
+	protected static void clear ()
+	{
+		head = tail;
+	}
+
+	//Returns how many events are waiting.
+	public static int getDepth ()
+	{
+		return (int)(tail - head);
+	}
+
+	//Returns how many events were dropped because the ring was full.
+	public static long getDropped ()
+	{
+		return dropped;
+	}
+
+	//Returns how many events the last drain handed on.
+	public static int getLastCount ()
+	{
+		return lastCount;
+	}
+
+	//Returns the nanoTime the oldest event in the last drain arrived, or 0 if there were none.
+	public static long getLastArrival ()
+	{
+		return lastArrival;
+	}
+
+	//Returns when the oldest event in the last drain happened, in milliseconds, or 0 if there were none.
+	public static long getLastWhen ()
+	{
+		return lastWhen;
+	}
+}
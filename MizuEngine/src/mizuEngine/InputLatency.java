@@ -0,0 +1,88 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: InputLatency                                                    |
+| Date: 10/18/2026                                                      |
+| Description: This class measures how long input takes to reach the   |
+| screen. The oldest input each update drains is followed to the first  |
+| frame published after it, and timed when that frame is shown. Two     |
+| histograms are kept: from when the listener got the event, and from   |
+| when the system says it happened, which also counts time spent before |
+| the event thread saw it.                                              |
+|                                                                       |
+| Notes: Event times are in milliseconds, so that histogram is only as  |
+| fine as the system clock. Input that no shown frame consumes, like    |
+| input while headless rendering is off, is never counted.              |
+=========================================================================
+ */
+package mizuEngine;
+
+public class InputLatency
+{
+	//Histograms from arrival to show and from the event's time to show.
+	private static final LatencyHistogram arrivalToShow = new LatencyHistogram();
+	private static final LatencyHistogram eventToShow = new LatencyHistogram();
+
+	//Oldest input drained since the last published frame, or 0 if none. Game thread only.
+	private static long pendingArrival = 0;
+	private static long pendingWhen = 0;
+	//Oldest input the frame being rendered consumed, or 0 if none.
+	private static volatile long frameArrival = 0;
+	private static volatile long frameWhen = 0;
+
+	//Notes the oldest input of a drain. Called on the game thread after InputEventQueue drains.
+	protected static void drained ()
+	{
+		if (pendingArrival == 0 && InputEventQueue.getLastCount() > 0)
+		{
+			pendingArrival = InputEventQueue.getLastArrival();
+			pendingWhen = InputEventQueue.getLastWhen();
+		}
+	}
+
+	//Hands input drained so far to the frame just published. Called on the game thread.
+	protected static void published ()
+	{
+		frameWhen = pendingWhen;
+		frameArrival = pendingArrival;
+		pendingArrival = 0;
+		pendingWhen = 0;
+	}
+
+	//Records latency for the frame just shown, if it consumed input. Called by whichever thread renders.
+	protected static void shown ()
+	{
+		long arrival = frameArrival;
+		if (arrival == 0)
+			return;
+
+		arrivalToShow.record(System.nanoTime() - arrival);
+		long when = frameWhen;
+		if (when > 0)
+		{
+			eventToShow.record((System.currentTimeMillis() - when) * 1000000L);
+		}
+		frameArrival = 0;
+	}
+
+	//Returns the histogram from when input arrived to when it was shown.
+	public static LatencyHistogram getArrivalToShow ()
+	{
+		return arrivalToShow;
+	}
+
+	//Returns the histogram from when input happened, by its event time, to when it was shown.
+	public static LatencyHistogram getEventToShow ()
+	{
+		return eventToShow;
+	}
+
+	//Clears both histograms.
+	public static void reset ()
+	{
+		arrivalToShow.reset();
+		eventToShow.reset();
+	}
+}
@@ -0,0 +1,256 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: InputRecorder                                                   |
+| Date: 10/18/2026                                                      |
+| Description: This class records every update's elapsed time and the   |
+| full keyboard and mouse state into a small binary log, and plays a    |
+| log back in place of real input. Replaying the same log runs a scene  |
+| through exactly the same updates every time, so it can be used for    |
+| repeatable benchmarks and to reproduce problems from the field.       |
+|                                                                       |
+| Notes: Only the key bitset words and mouse values that changed since  |
+| the last update are written, so idle updates cost a few bytes.        |
+| Format: "MZRC", int version, then per update: int elapsed time, short |
+| changed key words, each a short set and word index and a long, short  |
+| changed mouse value mask, then each changed mouse value as an int.    |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.DataInputStream;
+import java.io.FileOutputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+
+import java.util.Arrays;
+
+public class InputRecorder
+{
+	//Identifies a log.
+	private static final int MAGIC = ('M' << 24) | ('Z' << 16) | ('R' << 8) | 'C';
+	//Version this class reads.
+	private static final int VERSION = 1;
+	//Bits of a key word's entry that hold its index within a set.
+	private static final int WORD_BITS = 12;
+
+	//Open log, or null.
+	private static DataOutputStream out;
+	private static DataInputStream in;
+
+	//State as of the last update recorded or replayed. Keys are held, pressed and released.
+	private static long[][] keys;
+	private static final int[] mouse = new int[MouseManager.STATE_LENGTH];
+	//Live key bitsets, looked up once.
+	private static long[][] liveKeys;
+	//Live mouse state, reused every update.
+	private static final int[] liveMouse = new int[MouseManager.STATE_LENGTH];
+	//Updates recorded or replayed.
+	private static long updates = 0;
+
+	//Starts recording to file. Returns false if it could not be opened.
+	public static boolean startRecording (File file)
+	{
+		stop();
+		try
+		{
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+		}
+		catch (IOException e)
+		{
+			System.out.println("Input recording \"" + file + "\" could not be written.");
+			stop();
+			return false;
+		}
+		start();
+		return true;
+	}
+
+	//Starts replaying file in place of real input. Returns false if it could not be read.
+	public static boolean startReplay (File file)
+	{
+		stop();
+		try
+		{
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+			{
+				throw new IOException("not an input recording");
+			}
+		}
+		catch (IOException e)
+		{
+			System.out.println("Input recording \"" + file + "\" could not be read.");
+			stop();
+			return false;
+		}
+		start();
+		return true;
+	}
+
+	//Clears the last state, so the first update writes or reads everything that is set.
+	private static void start ()
+	{
+		long[][] live = KeyboardManager.getStates();
+		liveKeys = live;
+		keys = new long[live.length][];
+		for (int set = 0; set < live.length; set++)
+		{
+			keys[set] = new long[live[set].length];
+		}
+		Arrays.fill(mouse, 0);
+		updates = 0;
+	}
+
+	//Closes any log.
+	public static void stop ()
+	{
+		try
+		{
+			if (out != null) out.close();
+			if (in != null) in.close();
+		}
+		catch (IOException e)
+		{
+			System.out.println("Input recording could not be closed.");
+		}
+		out = null;
+		in = null;
+	}
+
+	//Returns true while recording.
+	public static boolean isRecording ()
+	{
+		return out != null;
+	}
+
+	//Returns true while replaying.
+	public static boolean isReplaying ()
+	{
+		return in != null;
+	}
+
+	//Returns how many updates were recorded or replayed.
+	public static long getUpdates ()
+	{
+		return updates;
+	}
+
+	//Writes this update's elapsed time and input state. Called on the game thread after input is drained.
+	protected static void record (long elapsedTime)
+	{
+		if (out == null)
+			return;
+
+		long[][] live = liveKeys;
+		MouseManager.writeState(liveMouse);
+		try
+		{
+			out.writeInt((int)elapsedTime);
+
+			//Counts changed words first, so the reader knows how many follow.
+			int changed = 0;
+			for (int set = 0; set < live.length; set++)
+			{
+				for (int word = 0; word < live[set].length; word++)
+				{
+					if (live[set][word] != keys[set][word]) changed++;
+				}
+			}
+			out.writeShort(changed);
+			for (int set = 0; set < live.length; set++)
+			{
+				for (int word = 0; word < live[set].length; word++)
+				{
+					if (live[set][word] != keys[set][word])
+					{
+						out.writeShort((set << WORD_BITS) | word);
+						out.writeLong(live[set][word]);
+						keys[set][word] = live[set][word];
+					}
+				}
+			}
+
+			int mask = 0;
+			for (int i = 0; i < mouse.length; i++)
+			{
+				if (liveMouse[i] != mouse[i]) mask |= 1 << i;
+			}
+			out.writeShort(mask);
+			for (int i = 0; i < mouse.length; i++)
+			{
+				if ((mask & (1 << i)) != 0)
+				{
+					out.writeInt(liveMouse[i]);
+					mouse[i] = liveMouse[i];
+				}
+			}
+			updates++;
+		}
+		catch (IOException e)
+		{
+			System.out.println("Input recording could not be written. Recording stopped.");
+			stop();
+		}
+	}
+
+	//Reads the next update into the input managers. Returns its elapsed time, or -1 once the log ends.
+	//Called on the game thread in place of draining input.
+	protected static long replay ()
+	{
+		if (in == null)
+			return -1;
+
+		try
+		{
+			long elapsedTime = in.readInt();
+
+			int changed = in.readUnsignedShort();
+			for (int i = 0; i < changed; i++)
+			{
+				int entry = in.readUnsignedShort();
+				keys[entry >>> WORD_BITS][entry & ((1 << WORD_BITS) - 1)] = in.readLong();
+			}
+
+			int mask = in.readUnsignedShort();
+			for (int i = 0; i < mouse.length; i++)
+			{
+				if ((mask & (1 << i)) != 0)
+				{
+					mouse[i] = in.readInt();
+				}
+			}
+
+			//Every word is copied, since the managers clear some between updates.
+			long[][] live = liveKeys;
+			for (int set = 0; set < live.length; set++)
+			{
+				System.arraycopy(keys[set], 0, live[set], 0, live[set].length);
+			}
+			KeyboardManager.restored();
+			MouseManager.readState(mouse);
+			updates++;
+			return elapsedTime;
+		}
+		catch (EOFException e)
+		{
+			stop();
+			return -1;
+		}
+		catch (IOException e)
+		{
+			System.out.println("Input recording could not be read. Replay stopped.");
+			stop();
+			return -1;
+		}
+	}
+}
@@ -8,11 +8,18 @@
 | Description: This class is responsible for listening for keyboard     |
 | input. It stores key states in an array, and also records if any key  |
 | is currently being pressed.                                           |
+|                                                                       |
+| Notes: Listeners only push events to InputEventQueue. Key states are  |
+| changed on the game thread as the queue drains at the start of each   |
+| update, so a key pressed and released within a frame still counts.    |
+| States are bitsets over every virtual key code and every extended key |
+| code, the ones newer runtimes give keys without a virtual key code.   |
 =========================================================================
  */
 package mizuEngine;
 
 import java.util.Arrays;
+import java.lang.reflect.Method;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 
@@ -21,22 +28,40 @@ public class KeyboardManager implements KeyListener
 	//Allows only one keyboardManager.
 	private static KeyboardManager mouseManager;
 
-	//Array of booleans for each key.
-	private static boolean[] keyStatesHeld;
-	private static boolean[] keyStatesPressed;
+	//Key codes below this are virtual key codes.
+	private static final int VIRTUAL_KEYS = 0x10000;
+	//Extended key codes, for keys with no virtual key code, start here.
+	private static final int EXTENDED_BASE = 0x01000000;
+	//Bits for every virtual key code, then every extended one.
+	private static final int KEY_COUNT = VIRTUAL_KEYS * 2;
+	//Names of low key codes are kept once looked up.
+	private static final int NAMED_KEYS = 256;
+	//KeyEvent.getExtendedKeyCode, on runtimes that have it.
+	private static final Method EXTENDED_KEY_CODE = findExtendedKeyCode();
+
+	//Bitsets of key states, 64 keys to a long.
+	private static long[] keyStatesHeld;
+	private static long[] keyStatesPressed;
+	private static long[] keyStatesReleased;
+	//True if any key was pressed or released this frame, so idle frames clear nothing.
+	private static boolean keyChanged;
 	//Indicates if any key has been pressed.
 	private static boolean keyPressed;
+	//Key names, looked up the first time each is needed.
+	private static String[] keyNames;
 
 	//KeyboardManager constructor
 	private KeyboardManager()
 	{
-		//New boolean array sets all to false.
-		keyStatesHeld = new boolean[256];
-		Arrays.fill(keyStatesHeld, false);
-		keyStatesPressed = new boolean[256];
-		Arrays.fill(keyStatesPressed, false);
+		//New bitsets start all false.
+		keyStatesHeld = new long[KEY_COUNT / 64];
+		keyStatesPressed = new long[KEY_COUNT / 64];
+		keyStatesReleased = new long[KEY_COUNT / 64];
+		keyChanged = false;
 		//Default keyPressed state.
 		keyPressed = false;
+		//No names looked up yet.
+		keyNames = new String[NAMED_KEYS];
 	}
 
 	//Returns the mouseManager.
@@ -55,43 +80,116 @@ public class KeyboardManager implements KeyListener
 	//Listener for pressed keys.
 	public void keyPressed (KeyEvent e)
 	{
-		if (e.getKeyCode() >= 0 && e.getKeyCode() <= 256)
-		{
-			keyStatesHeld[e.getKeyCode()] = true;
-			keyStatesPressed[e.getKeyCode()] = true;
-			keyPressed = true;
-		}
+		InputEventQueue.push(InputEventQueue.KEY_PRESSED, keyCode(e), 0, 0, e.getWhen());
 	}
 
 	//Listener for released keys.
 	public void keyReleased (KeyEvent e)
 	{
-		if (e.getKeyCode() >= 0 && e.getKeyCode() <= 256)
-		{
-			keyStatesHeld[e.getKeyCode()] = false;
-			keyStatesPressed[e.getKeyCode()] = false;
-		}
+		InputEventQueue.push(InputEventQueue.KEY_RELEASED, keyCode(e), 0, 0, e.getWhen());
 	}
 
 	//Listener for typed keys.
 	public void keyTyped (KeyEvent e)
 	{
-		if (e.getKeyCode() >= 0 && e.getKeyCode() <= 256)
+		//Do nothing.
+	}
+
+	//Returns e's key code, or its extended key code if it has no virtual one.
+	private static int keyCode (KeyEvent e)
+	{
+		int key = e.getKeyCode();
+		if (key == KeyEvent.VK_UNDEFINED && EXTENDED_KEY_CODE != null)
 		{
-			//Do nothing.
+			try
+			{
+				key = (Integer)EXTENDED_KEY_CODE.invoke(e);
+			}
+			catch (Exception ex)
+			{
+				//Stays undefined.
+			}
 		}
+		return key;
+	}
+
+	//Finds KeyEvent.getExtendedKeyCode, or returns null on runtimes without it.
+	private static Method findExtendedKeyCode ()
+	{
+		try
+		{
+			return KeyEvent.class.getMethod("getExtendedKeyCode");
+		}
+		catch (Exception e)
+		{
+			return null;
+		}
+	}
+
+	//Returns key's bit, or -1 if it is outside both ranges.
+	private static int index (int key)
+	{
+		if (key >= 0 && key < VIRTUAL_KEYS)
+			return key;
+		if (key >= EXTENDED_BASE && key < EXTENDED_BASE + VIRTUAL_KEYS)
+			return VIRTUAL_KEYS + key - EXTENDED_BASE;
+		return -1;
+	}
+
+	//Returns the key code of bit.
+	private static int keyOf (int bit)
+	{
+		return bit < VIRTUAL_KEYS ? bit : bit - VIRTUAL_KEYS + EXTENDED_BASE;
+	}
+
+	//Returns true if key's bit is set in keys.
+	private static boolean get (long[] keys, int key)
+	{
+		int bit = index(key);
+		return bit >= 0 && (keys[bit >>> 6] & (1L << bit)) != 0;
+	}
+
+	//Applies a key event from InputEventQueue. Called on the game thread.
+	protected static void apply (int type, int key)
+	{
+		int bit = index(key);
+		if (bit < 0)
+		{
+			return;
+		}
+
+		long mask = 1L << bit;
+		if (type == InputEventQueue.KEY_PRESSED)
+		{
+			keyStatesHeld[bit >>> 6] |= mask;
+			keyStatesPressed[bit >>> 6] |= mask;
+			keyPressed = true;
+		}
+		else
+		{
+			//Pressed stays set until the frame ends, so short taps are not lost.
+			keyStatesHeld[bit >>> 6] &= ~mask;
+			keyStatesReleased[bit >>> 6] |= mask;
+		}
+		keyChanged = true;
 	}
 
 	//Returns if specific key is being pressed.
 	public static boolean isPressed (int key)
 	{
-		return keyStatesHeld[key];
+		return get(keyStatesHeld, key);
 	}
 
 	//Returns if specific key was pressed.
 	public static boolean wasPressed (int key)
 	{
-		return keyStatesPressed[key];
+		return get(keyStatesPressed, key);
+	}
+
+	//Returns if specific key was released.
+	public static boolean wasReleased (int key)
+	{
+		return get(keyStatesReleased, key);
 	}
 
 	//Returns if any key has been pressed during this frame.
@@ -100,41 +198,80 @@ public class KeyboardManager implements KeyListener
 		return keyPressed;
 	}
 
-	//Returns an array of names corrosponding to keys being held.
-	protected static String[] getKeysPressed ()
+	//Returns the first key held at or after key, or -1 if there are none.
+	protected static int nextKeyHeld (int key)
 	{
-		int numberOfKeys = 0;
-		int[] keyCodes = new int[keyStatesHeld.length];
+		int bit = key < VIRTUAL_KEYS ? Math.max(0, key) : index(key);
+		if (bit < 0)
+		{
+			return -1;
+		}
 
-		for (int i = 0; i < keyStatesHeld.length; i++)
+		//Skips empty words 64 keys at a time.
+		int word = bit >>> 6;
+		long bits = keyStatesHeld[word] & (-1L << bit);
+		while (bits == 0)
 		{
-			if (keyStatesHeld[i])
+			if (++word == keyStatesHeld.length)
 			{
-				keyCodes[numberOfKeys] = i;
-				numberOfKeys++;
+				return -1;
 			}
+			bits = keyStatesHeld[word];
+		}
+		return keyOf(word * 64 + Long.numberOfTrailingZeros(bits));
+	}
+
+	//Returns the name of key.
+	protected static String getKeyName (int key)
+	{
+		if (key < 0 || key >= NAMED_KEYS)
+		{
+			return KeyEvent.getKeyText(key);
 		}
 
-		String[] keyNames = new String[numberOfKeys];
-		for (int i = 0; i < numberOfKeys; i++)
+		//Looks the name up once.
+		if (keyNames[key] == null)
 		{
-			keyNames[i] = KeyEvent.getKeyText(keyCodes[i]);
+			keyNames[key] = KeyEvent.getKeyText(key);
 		}
+		return keyNames[key];
+	}
 
-		return keyNames;
+	//Returns the held, pressed and released bitsets themselves, for InputRecorder.
+	protected static long[][] getStates ()
+	{
+		return new long[][] {keyStatesHeld, keyStatesPressed, keyStatesReleased};
+	}
+
+	//Updates what is derived from the bitsets after InputRecorder writes them.
+	protected static void restored ()
+	{
+		keyChanged = true;
+		keyPressed = false;
+		for (int i = 0; i < keyStatesPressed.length && !keyPressed; i++)
+		{
+			keyPressed = keyStatesPressed[i] != 0;
+		}
 	}
 
 	//Between frame maintenance.
 	protected static void update ()
 	{
 		keyPressed = false;
-		Arrays.fill(keyStatesPressed, false);
+		if (keyChanged)
+		{
+			Arrays.fill(keyStatesPressed, 0L);
+			Arrays.fill(keyStatesReleased, 0L);
+			keyChanged = false;
+		}
 	}
 
 	//Resets keyStates array to all false.
 	protected static void reset ()
 	{
-		Arrays.fill(keyStatesHeld, false);
-		Arrays.fill(keyStatesPressed, false);
+		Arrays.fill(keyStatesHeld, 0L);
+		Arrays.fill(keyStatesPressed, 0L);
+		Arrays.fill(keyStatesReleased, 0L);
+		keyChanged = false;
 	}
 }
\ No newline at end of file
@@ -12,15 +12,16 @@
 package mizuEngine;
 
 import java.awt.Image;
+import javax.sound.sampled.Clip;
 import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
-import java.util.Queue;
 
 public class KrystalfoxGames extends Scene
 {
     //MizuEngineScene Variables
     private Scene nextScene;
-    private Image krystalfoxGamesLogo;
+    private Asset<Image> krystalfoxGamesLogo;
+    private Asset<Clip> krystalfoxGamesSound;
     private int timeDisplayed;
     private final int DISPLAY_TIME = 2;
     
@@ -35,8 +36,8 @@ public class KrystalfoxGames extends Scene
     //Scene loads any resources it needs.
     public void load ()
     {
-        krystalfoxGamesLogo = ImageManager.loadImage("krystalfoxGames/krystalfoxGamesLogo.png");
-        AudioManager.load("krystalfoxGames/krystalfoxGames.wav");
+        krystalfoxGamesLogo = acquireImage("krystalfoxGames/krystalfoxGamesLogo.png");
+        krystalfoxGamesSound = acquireSound("krystalfoxGames/krystalfoxGames.wav");
     }
     
     //Scene initializes
@@ -49,7 +50,7 @@ public class KrystalfoxGames extends Scene
     public void start ()
     {
         MizuEngine.getMizuEngine().setTitle("");
-        AudioManager.play("krystalfoxGames/krystalfoxGames.wav");
+        AudioManager.play(krystalfoxGamesSound.getPath());
     }
     
     //Scene finishes itself and then ends.
@@ -57,10 +58,7 @@ public class KrystalfoxGames extends Scene
     {
         //Stops all audio currently playing.
         AudioManager.stopAll(); //("sounds/mizuEngine/mizuPour.wav");
-        //Frees Unneeded audio from AudioManager
-        AudioManager.unload("sounds/krystalFoxGames/krystalfoxGames.wav");
-        //Frees Unneeded images from ImageManager
-        ImageManager.unload("images/krystalFoxGames/krystalfoxGamesLogo.png");
+        //Logo and audio are released by SceneManager.
     }
     
     //Scene updates using elapsedTime
@@ -90,15 +88,16 @@ public class KrystalfoxGames extends Scene
     public void render (Graphics2D g2d)
     {
     	//Draws logo centered.
-        g2d.drawImage(krystalfoxGamesLogo, -(krystalfoxGamesLogo.getWidth(null) - MizuEngine.getMizuEngine().getWidth()) / 2,
-        								   -(krystalfoxGamesLogo.getHeight(null) - MizuEngine.getMizuEngine().getHeight()) / 2, null);
+        Image logo = krystalfoxGamesLogo.get();
+        g2d.drawImage(logo, -(logo.getWidth(null) - MizuEngine.getMizuEngine().getWidth()) / 2,
+        				    -(logo.getHeight(null) - MizuEngine.getMizuEngine().getHeight()) / 2, null);
     }
     
     //Debug renders to Graphics2D object.
-    public void renderDebug (Queue<String> debugQ)
+    public void renderDebug (DebugOverlay overlay)
     {
         //Renders KrystalFoxGames debug.
-        debugQ.offer("KrystalfoxGames debug");
+        overlay.add("KrystalfoxGames debug");
     }
     
     //This is where changeScene() calls are made.
@@ -0,0 +1,138 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: LatencyHistogram                                                |
+| Date: 10/18/2026                                                      |
+| Description: This class counts nanosecond timings in log-linear       |
+| buckets. Every power of two is split into 16 buckets, so percentiles  |
+| are within about 6% of the real value. Recording is a few array       |
+| writes and never allocates, so it can run every frame.                |
+|                                                                       |
+| Notes: Only one thread should record into a histogram. Reading from   |
+| another thread is allowed and may be off by the frame in progress.    |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.util.Arrays;
+
+public class LatencyHistogram
+{
+	//Buckets per power of two, as a number of bits.
+	private final int SUB_BUCKET_BITS = 4;
+	private final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	//Highest power of two counted. Anything above lands in the last bucket.
+	private final int MAX_POWER = 40;
+
+	//Counts per bucket.
+	private final long[] buckets;
+	//Totals.
+	private long count;
+	private long total;
+	private long max;
+
+	//LatencyHistogram constructor.
+	public LatencyHistogram ()
+	{
+		buckets = new long[(MAX_POWER - SUB_BUCKET_BITS + 2) * SUB_BUCKETS];
+		reset();
+	}
+
+	//Counts one timing.
+	public void record (long nanos)
+	{
+		if (nanos < 0)
+			nanos = 0;
+
+		buckets[bucketOf(nanos)]++;
+		count++;
+		total += nanos;
+		if (nanos > max)
+			max = nanos;
+	}
+
+	//Returns the timing that fraction of timings are at or below.
+	public long getPercentile (double fraction)
+	{
+		if (count == 0)
+			return 0;
+
+		//Number of timings that must be at or below the answer.
+		long target = (long)Math.ceil(fraction * count);
+		if (target < 1)
+			target = 1;
+
+		long seen = 0;
+		for (int i = 0; i < buckets.length; i++)
+		{
+			seen += buckets[i];
+			if (seen >= target)
+			{
+				//Never reports more than was actually recorded.
+				return Math.min(highestValueOf(i), max);
+			}
+		}
+		return max;
+	}
+
+	//Returns median timing.
+	public long getMedian ()
+	{
+		return getPercentile(0.5);
+	}
+
+	//Returns longest timing.
+	public long getMax ()
+	{
+		return max;
+	}
+
+	//Returns average timing.
+	public long getMean ()
+	{
+		return count == 0 ? 0 : total / count;
+	}
+
+	//Returns how many timings were counted.
+	public long getCount ()
+	{
+		return count;
+	}
+
+	//Forgets all timings.
+	public void reset ()
+	{
+		Arrays.fill(buckets, 0);
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+
+	//Finds the bucket a timing belongs in.
+	private int bucketOf (long nanos)
+	{
+		//Small values get a bucket each.
+		if (nanos < SUB_BUCKETS)
+			return (int)nanos;
+
+		//Position of highest bit decides the power of two.
+		int power = 63 - Long.numberOfLeadingZeros(nanos);
+		int shift = power - SUB_BUCKET_BITS;
+		int index = (shift + 1) * SUB_BUCKETS + (int)((nanos >> shift) & (SUB_BUCKETS - 1));
+
+		return Math.min(index, buckets.length - 1);
+	}
+
+	//Returns the highest timing that falls in bucket.
+	private long highestValueOf (int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+
+		int shift = bucket / SUB_BUCKETS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,137 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: LoadingScene                                                    |
+| Date: 10/18/2026                                                      |
+| Description: This is a scene that shows a progress bar while an       |
+| AssetLoader works through a manifest, then changes to the next Scene. |
+| By the time the next Scene loads, its assets are already cached.      |
+=========================================================================
+*/
+package mizuEngine;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+
+public class LoadingScene extends Scene
+{
+    //LoadingScene Variables
+    private final String manifestPath;
+    private final Scene nextScene;
+    private AssetLoader assetLoader;
+    private float progress;
+    //Progress render reads, copied in publish.
+    private float renderedProgress;
+    private final int BAR_WIDTH = 300;
+    private final int BAR_HEIGHT = 12;
+
+    public LoadingScene (String manifestPath, Scene scene)
+    {
+        //The manifest to load.
+        this.manifestPath = manifestPath;
+        //The scene to load next.
+        nextScene = scene;
+    }
+
+    //Scene loads any resources it needs.
+    public void load ()
+    {
+
+    }
+
+    //Scene initializes
+    public void init ()
+    {
+        progress = 0;
+        renderedProgress = 0;
+    }
+
+    //Scene starts running.
+    public void start ()
+    {
+    	//Starts loading on the worker threads.
+        assetLoader = AssetLoader.load(manifestPath);
+    }
+
+    //Scene finishes itself and then ends.
+    public void stop ()
+    {
+
+    }
+
+    //Scene updates using elapsedTime
+    public void update (long elapsedTime)
+    {
+        //Changes scene once everything is published.
+        if (assetLoader.isDone())
+        {
+            //Reports anything the next Scene will have to load itself.
+            if (assetLoader.getFailed() > 0)
+            {
+                System.out.println(assetLoader.getFailed() + " of " + assetLoader.getTotal() +
+                                   " assets in \"" + manifestPath + "\" could not be loaded.");
+            }
+            changeToNextScene();
+            return;
+        }
+
+        //Redraws the bar when it moves.
+        if (assetLoader.getProgress() != progress)
+        {
+        	progress = assetLoader.getProgress();
+        	DirtyRegions.markDirty(barX() - 2, barY() - 2, BAR_WIDTH + 4, BAR_HEIGHT + 4);
+        }
+    }
+
+    //Scene copies what render reads.
+    public void publish ()
+    {
+    	renderedProgress = progress;
+    }
+
+    //Scene renders to Graphics2D object.
+    public void render (Graphics2D g2d)
+    {
+    	//Draws the bar outline and how far along it is.
+        g2d.setColor(Color.white);
+        g2d.drawRect(barX() - 2, barY() - 2, BAR_WIDTH + 3, BAR_HEIGHT + 3);
+        g2d.fillRect(barX(), barY(), (int)(BAR_WIDTH * renderedProgress), BAR_HEIGHT);
+    }
+
+    //Debug renders to Graphics2D object.
+    public void renderDebug (DebugOverlay overlay)
+    {
+        overlay.add("LoadingScene debug");
+        overlay.add("Loaded: ", assetLoader.getFinished());
+        overlay.add("Total: ", assetLoader.getTotal());
+        overlay.add("Failed: ", assetLoader.getFailed());
+    }
+
+    //This is where changeScene() calls are made.
+    private void changeToNextScene ()
+    {
+        //If newScene is null shutdown.
+        if (nextScene == null)
+        {
+            //Send shutDown command to the engine.
+            MizuEngine.getMizuEngine().shutDown();
+        }
+
+        //Changes to the next Scene
+        SceneManager.changeScene(nextScene);
+    }
+
+    //Left edge of the bar.
+    private int barX ()
+    {
+    	return (MizuEngine.getMizuEngine().getWidth() - BAR_WIDTH) / 2;
+    }
+
+    //Top edge of the bar.
+    private int barY ()
+    {
+    	return (MizuEngine.getMizuEngine().getHeight() - BAR_HEIGHT) / 2;
+    }
+}
@@ -12,16 +12,20 @@
 */
 package mizuEngine;
 
+import java.awt.Font;
 import java.awt.Color;
 import java.awt.Canvas;
+import java.awt.Rectangle;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.event.KeyEvent;
 import java.awt.GraphicsEnvironment;
 import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.geom.Path2D;
+
+import java.io.File;
 
-import java.util.Queue;
-import java.util.LinkedList;
 
 public class MizuEngine extends Canvas
 {
@@ -34,13 +38,29 @@ public class MizuEngine extends Canvas
     //Engine Constants
     private final int CANVAS_WIDTH;
     private final int CANVAS_HEIGHT;
-    public final int DEFAULT_SLEEP = 13;
+    public final int DEFAULT_FPS = 60;
+    public final int DEFAULT_TICK_RATE = 60;
+    
+    //Most fixed updates run in one frame before time is dropped.
+    private final int MAX_CATCH_UP_TICKS = 5;
     
     //JFrame title
     private final String ENGINE_TITLE = new String("MizuEngine - VolatileFox 2011");
     
     //Buffer Strategy
     private BufferStrategy bufferStrategy;
+    
+    //Headless mode renders offscreen instead of to a window.
+    private boolean headless;
+    private boolean headlessRendering;
+    private BufferedImage offscreenImage;
+    
+    //Throughput counters.
+    private long startTime;
+    private long updateCount;
+    private long frameCount;
+    //Prints throughput and timings on shut down.
+    private boolean printTimings;
 
     //KrystalfoxGames.com game.
     private boolean krystalfoxGame;
@@ -48,12 +68,31 @@ public class MizuEngine extends Canvas
     //Engine Variables
     private boolean isRunning;
     private boolean debug;
-    private int sleepTime;
+    private boolean profilerOverlay;
+    
+    //Paces the gameloop.
+    private final FrameLimiter frameLimiter;
+    
+    //Fixed timestep settings.
+    private boolean fixedTimestep;
+    private int tickRate;
+    private long tickTime;
+    private long tickCount;
+    
+    //Only redraws regions Scenes mark dirty.
+    private boolean dirtyRendering;
+    private final Rectangle dirtyRegion;
+    //Every dirty region together, reused as the clip.
+    private final Path2D.Float dirtyClip;
+    
+    //Renders on its own thread while the next frame updates.
+    private boolean pipelined;
+    private RenderThread renderThread;
     
     //Used for FPS
     private long second;
     private int FPSCounter;
-    private int FPS;
+    private volatile int FPS;
     
     //Debug on screen spacing.
     private final int DEBUG_SPACING_X = 20;
@@ -62,14 +101,31 @@ public class MizuEngine extends Canvas
     
     //Used for debug background.
     private final Color debugBackgroundColor;
+    //Debug lines are written here every frame.
+    private final DebugOverlay debugOverlay;
     
     //Graphics settings.
     private boolean antiAliasing;
     
+    //Input log to record to or replay, or null.
+    private String recordingPath;
+    private String replayPath;
+    
+    //Function key actions, rebindable through InputActions.
+    private final int debugAction;
+    private final int hideCursorAction;
+    private final int mouseLookAction;
+    private final int jailedCursorAction;
+    private final int fullScreenAction;
+    private final int antiAliasingAction;
+    private final int profilerAction;
+    private final int resetProfilerAction;
+    
     private MizuEngine (int canvasWidth, int canvasHeight)
     {
     	//Gives the current graphics configuration of the machine being used to the super constructor .
-    	super(GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration());
+    	//There is none without a display.
+    	super(GraphicsEnvironment.isHeadless() ? null : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration());
     	
     	//Initializes width height.
         CANVAS_WIDTH = canvasWidth;
@@ -86,9 +142,24 @@ public class MizuEngine extends Canvas
         
         //Debug.
         debugBackgroundColor = new Color(0.1f, 0.1f, 0.1f, 0.5f);
+        debugOverlay = new DebugOverlay(new Font("Dialog", Font.PLAIN, 12));
         isRunning = false;
         debug = false;
-        sleepTime = DEFAULT_SLEEP;
+        profilerOverlay = false;
+        frameLimiter = new FrameLimiter(DEFAULT_FPS);
+        
+        //Variable timestep by default.
+        fixedTimestep = false;
+        setTickRate(DEFAULT_TICK_RATE);
+        
+        //Redraws everything by default.
+        dirtyRendering = false;
+        dirtyRegion = new Rectangle();
+        dirtyClip = new Path2D.Float();
+        
+        //Single threaded by default.
+        pipelined = false;
+        renderThread = null;
         
         //FPS.
         second = 0;
@@ -98,6 +169,29 @@ public class MizuEngine extends Canvas
         //Default graphics settings.
         antiAliasing = true;
         
+        //No input log by default.
+        recordingPath = null;
+        replayPath = null;
+        
+        //Function key actions with their default keys.
+        debugAction = registerAction("debug", KeyEvent.VK_F1);
+        hideCursorAction = registerAction("hideCursor", KeyEvent.VK_F2);
+        mouseLookAction = registerAction("mouseLook", KeyEvent.VK_F3);
+        jailedCursorAction = registerAction("jailedCursor", KeyEvent.VK_F4);
+        fullScreenAction = registerAction("fullScreen", KeyEvent.VK_F5);
+        antiAliasingAction = registerAction("antiAliasing", KeyEvent.VK_F6);
+        profilerAction = registerAction("profiler", KeyEvent.VK_F7);
+        resetProfilerAction = registerAction("resetProfiler", KeyEvent.VK_F8);
+        
+        //Headless when there is no display. Headless still renders by default.
+        headless = GraphicsEnvironment.isHeadless();
+        headlessRendering = true;
+        offscreenImage = null;
+        startTime = 0;
+        updateCount = 0;
+        frameCount = 0;
+        printTimings = false;
+        
         //Denies Canvas focus.
         this.setFocusable(false);
     }
@@ -152,17 +246,32 @@ public class MizuEngine extends Canvas
     //This method initializes resource managers.
     private void init (Scene initialScene)
     {
-        //Initializes DsiplayManager and gives it MizuEngine.
-        DisplayManager.getDisplayManager();
-        DisplayManager.display(this);
-        DisplayManager.displayWindowed();
-        //Sets MizuEngine title.
-        setTitle(ENGINE_TITLE);
-        //Creates Buffer Strategy.
-        refreshBufferStrategy();
-        
-        //Initializes ImageManager.
+        //Initializes ImageManager first, since display changes restore its images.
         ImageManager.getImageManager();
+        
+        if (headless)
+        {
+        	//Renders into an image instead of a window.
+        	offscreenImage = new BufferedImage(Math.max(1, CANVAS_WIDTH), Math.max(1, CANVAS_HEIGHT), BufferedImage.TYPE_INT_RGB);
+        }
+        else
+        {
+	        //Initializes DsiplayManager and gives it MizuEngine.
+	        DisplayManager.getDisplayManager();
+	        DisplayManager.display(this);
+	        DisplayManager.displayWindowed();
+	        //Sets MizuEngine title.
+	        setTitle(ENGINE_TITLE);
+	        //Creates Buffer Strategy.
+	        refreshBufferStrategy();
+        }
+        
+        //Initializes FrameProfiler.
+        FrameProfiler.getFrameProfiler();
+        //Initializes DirtyRegions.
+        DirtyRegions.getDirtyRegions();
+        //Initializes RenderQueue.
+        RenderQueue.getRenderQueue();
         //Initializes AudioManager.
         AudioManager.getAudioManager();
         //Initializes MouseManager.
@@ -174,7 +283,20 @@ public class MizuEngine extends Canvas
         //Initializes KeyboardManager.
         KeyboardManager.getKeyboardManager();
         //Adds KeyboardManager to frame as a KeyListener.
-        DisplayManager.getFrame().addKeyListener(KeyboardManager.getKeyboardManager());
+        if (!headless)
+        {
+        	DisplayManager.getFrame().addKeyListener(KeyboardManager.getKeyboardManager());
+        }
+        
+        //Starts recording or replaying input.
+        if (replayPath != null)
+        {
+        	InputRecorder.startReplay(new File(replayPath));
+        }
+        else if (recordingPath != null)
+        {
+        	InputRecorder.startRecording(new File(recordingPath));
+        }
         
         //Initializes sceneManager starts initial Scene.
         SceneManager.getSceneManager();
@@ -187,59 +309,279 @@ public class MizuEngine extends Canvas
     //This method starts the gameloop.
     private void start ()
     {
-    	//The current time updated at the beginning of each update.
+    	//The current time updated at the beginning of each frame.
     	long currentTime;
     	
         //The last time lastTime was updated.
-    	long lastTime = System.currentTimeMillis();
+    	long lastTime = System.nanoTime();
         
-        //elapsedTime updates game according to how much time has passed since last update.
-        long elapsedTime;
+        //frameTime is how many nanoseconds passed since the last frame.
+        long frameTime;
+        
+        //Time not yet simulated by fixed updates.
+        long accumulator = 0;
+        
+        //Sub millisecond time carried between variable updates.
+        long remainder = 0;
+        
+        //Starts pacing from now.
+        frameLimiter.reset(lastTime);
+        startTime = lastTime;
         
         //Gameloop
         while (isRunning)
         {
-            //Calculates elapsedTime.
-        	currentTime = System.currentTimeMillis();
-            elapsedTime = currentTime - lastTime;
+            //Calculates frameTime.
+        	currentTime = System.nanoTime();
+            frameTime = currentTime - lastTime;
             lastTime = currentTime;
             
-            //Retrieves Graphics2D object from bufferStrategy and clears it.
-            Graphics2D graphics2D = (Graphics2D)bufferStrategy.getDrawGraphics();
-            clear(graphics2D);
-
+            //How far rendering is between the last two fixed updates.
+            double alpha = 1.0;
+            
             //Updates.
-            update(elapsedTime);
-
-            // If Scene change.
+            //Replays run one recorded update per frame.
+            if (fixedTimestep && !InputRecorder.isReplaying())
+            {
+            	accumulator += frameTime;
+            	
+            	//Runs as many fixed updates as have come due.
+            	int ticks = 0;
+            	while (accumulator >= tickTime && ticks < MAX_CATCH_UP_TICKS)
+            	{
+            		timedUpdate(nextTickLength());
+            		accumulator -= tickTime;
+            		ticks++;
+            	}
+            	
+            	//Drops time that could not be caught up to avoid a spiral of death.
+            	if (accumulator >= tickTime)
+            	{
+            		accumulator %= tickTime;
+            	}
+            	
+            	alpha = (double)accumulator / tickTime;
+            }
+            else
+            {
+            	//Converts to milliseconds, keeping the remainder for next frame.
+            	remainder += frameTime;
+            	long elapsedTime = remainder / 1000000L;
+            	remainder -= elapsedTime * 1000000L;
+            	
+            	timedUpdate(elapsedTime);
+            }
             
-            //Renders.
-            render(graphics2D);
+            //Puts the cursor back for mouselook, once no matter how many updates ran.
+            MouseManager.recenter();
             
-            //Debug.
-            if (debug)
+            //Renders.
+            if (pipelined)
             {
-                //Updates FPS.
-                calculateFPS(elapsedTime);
-                //Render debug.
-                debugRender(graphics2D);
+            	//Starts the render thread the first time through.
+            	if (renderThread == null)
+            	{
+            		renderThread = new RenderThread(this);
+            		renderThread.start();
+            	}
+            	
+            	//Waits for the last frame before the Scene publishes the new one.
+            	renderThread.waitForIdle();
+            	if (publishFrame())
+            	{
+            		InputLatency.published();
+            		//Renders this frame while the next one updates.
+            		renderThread.submit(alpha, frameTime);
+            	}
+            }
+            else
+            {
+            	//Stops the render thread if pipelining was turned off.
+            	if (renderThread != null)
+            	{
+            		renderThread.stop();
+            		renderThread = null;
+            	}
+            	
+            	if (publishFrame())
+            	{
+            		InputLatency.published();
+            		renderFrame(alpha, frameTime);
+            	}
             }
             
-            //Shows the buffer and disposes the graphics.
-            flipPage(graphics2D);
-            
-            //Temporary limiter to free up CPU.
-            /* Consider running rendering processes in
-             * a separate thread.
-             */
-            try {Thread.sleep(sleepTime);} 
-            catch (InterruptedException ex) {}
+            //Waits for the next frame using sleep, yield, then spin.
+            FrameProfiler.record(FrameProfiler.SLEEP, frameLimiter.sync());
+            FrameProfiler.record(FrameProfiler.FRAME, frameTime);
         }
     }
     
+    //Publishes the frame for rendering. Returns false if there is nothing to draw.
+    private boolean publishFrame ()
+    {
+    	SceneManager.publish();
+    	
+    	//Copies the debug lines now, while nothing else is changing them.
+    	if (debug)
+    	{
+    		collectDebug();
+    	}
+    	
+    	//Everything is drawn unless in dirty region mode.
+    	if (!dirtyRendering)
+    	{
+    		return true;
+    	}
+    	
+    	//Overlays change every frame.
+    	if (debug)
+    	{
+    		DirtyRegions.markDirty(DEBUG_SPACING_X / 2, 0, DEBUG_WIDTH, CANVAS_HEIGHT);
+    	}
+    	if (profilerOverlay)
+    	{
+    		FrameProfiler.markOverlayDirty(CANVAS_WIDTH);
+    	}
+    	
+    	return DirtyRegions.publish();
+    }
+    
+    //This method renders and shows one frame.
+    protected void renderFrame (double alpha, long frameTime)
+    {
+    	frameCount++;
+    	
+    	//Headless without rendering only drives the Scenes.
+    	if (headless && !headlessRendering)
+    	{
+    		return;
+    	}
+    	
+    	//Restores sprites kept in video memory. Everything is drawn again if any were lost.
+    	if (ImageManager.validateAccelerated(getGraphicsConfiguration()))
+    	{
+    		DirtyRegions.markAllDirty();
+    	}
+    	
+        //Retrieves Graphics2D object and clears it.
+        long phaseStart = FrameProfiler.now();
+        Graphics2D graphics2D = getDrawGraphics();
+        
+        if (dirtyRendering)
+        {
+        	//Clips to every dirty region at once, so the Scene is cleared and rendered once.
+        	if (DirtyRegions.getRegionCount() == 1)
+        	{
+        		//One rectangle keeps the faster rectangular clip.
+        		DirtyRegions.getRegion(0, dirtyRegion);
+        		graphics2D.setClip(dirtyRegion.x, dirtyRegion.y, dirtyRegion.width, dirtyRegion.height);
+        	}
+        	else
+        	{
+        		//Regions never overlap, so their outlines together are their union.
+        		dirtyClip.reset();
+        		for (int i = 0; i < DirtyRegions.getRegionCount(); i++)
+        		{
+        			DirtyRegions.getRegion(i, dirtyRegion);
+        			dirtyClip.append(dirtyRegion, false);
+        		}
+        		graphics2D.setClip(dirtyClip);
+        	}
+        	
+        	clear(graphics2D);
+        	phaseStart = recordPhase(FrameProfiler.CLEAR, phaseStart);
+        	
+        	render(graphics2D, alpha);
+        	graphics2D.setClip(null);
+        	phaseStart = recordPhase(FrameProfiler.RENDER, phaseStart);
+        }
+        else
+        {
+	        clear(graphics2D);
+	        phaseStart = recordPhase(FrameProfiler.CLEAR, phaseStart);
+	        
+	        //Renders.
+	        render(graphics2D, alpha);
+	        phaseStart = recordPhase(FrameProfiler.RENDER, phaseStart);
+        }
+        
+        //Debug.
+        if (debug || profilerOverlay)
+        {
+        	if (debug)
+        	{
+	            //Updates FPS.
+	            calculateFPS(frameTime);
+	            //Render debug.
+	            debugRender(graphics2D);
+        	}
+        	if (profilerOverlay)
+        	{
+        		//Render phase timings.
+        		FrameProfiler.renderOverlay(graphics2D, CANVAS_WIDTH);
+        	}
+            phaseStart = recordPhase(FrameProfiler.DEBUG, phaseStart);
+        }
+        
+        //Shows the buffer and disposes the graphics.
+        flipPage(graphics2D);
+        recordPhase(FrameProfiler.SHOW, phaseStart);
+        //Times any input this frame was the first to show.
+        InputLatency.shown();
+    }
+    
+    //Records the time since phaseStart and returns the time now.
+    private long recordPhase (int phase, long phaseStart)
+    {
+    	long now = FrameProfiler.now();
+    	FrameProfiler.record(phase, now - phaseStart);
+    	return now;
+    }
+    
+    //Updates and records how long it took.
+    private void timedUpdate (long elapsedTime)
+    {
+    	long phaseStart = FrameProfiler.now();
+    	update(elapsedTime);
+    	recordPhase(FrameProfiler.UPDATE, phaseStart);
+    }
+    
+    //Returns the length in milliseconds of the next fixed update.
+    private long nextTickLength ()
+    {
+    	//Spreads the remainder of 1000 / tickRate evenly, so every second of ticks adds up to exactly 1000.
+    	long length = ((tickCount + 1) * 1000L) / tickRate - (tickCount * 1000L) / tickRate;
+    	tickCount++;
+    	return length;
+    }
+    
     //This method tells the SceneManager to update the active scene.
     private void update (long elapsedTime)
     {
+    	updateCount++;
+    	
+        if (InputRecorder.isReplaying())
+        {
+        	//Uses the recorded input and time instead of the real ones.
+        	InputEventQueue.clear();
+        	elapsedTime = InputRecorder.replay();
+        	if (elapsedTime < 0)
+        	{
+        		//Log is over.
+        		shutDown();
+        		return;
+        	}
+        }
+        else
+        {
+	        //Applies input that arrived since the last update.
+	        InputEventQueue.drain();
+	        InputLatency.drained();
+	        //Logs it if recording.
+	        InputRecorder.record(elapsedTime);
+        }
+        InputActions.update();
+        
         //Updates Function Key toggles.
     	updateToggles();
         
@@ -252,7 +594,7 @@ public class MizuEngine extends Canvas
     }
     
     //This method tells the SceneManager to render the active scene.
-    private void render (Graphics2D g2d)
+    private void render (Graphics2D g2d, double alpha)
     {
     	if (antiAliasing)
     	{
@@ -260,40 +602,57 @@ public class MizuEngine extends Canvas
     	}
     	
         //Sends render request to sceneManager.
-        SceneManager.render(g2d);
+        SceneManager.render(g2d, alpha);
+        
+        //Draws what the Scene queued, sorted.
+        RenderQueue.flush(g2d);
     }
     
-    //This method tells the SceneManager to render debug info.
-    private void debugRender (Graphics2D g2d)
+    //This method copies the Scene's and MizuEngine's debug info into the overlay. Called on the game thread.
+    private void collectDebug ()
     {
-    	//Uses a Queue to build a list of debug info.
-    	Queue<String> debugQ = new LinkedList<String>();
+    	//Starts a new frame of debug lines.
+    	debugOverlay.begin();
     	
         //Sends debug render request to current Scene.
-        SceneManager.renderDebug(debugQ);
+        SceneManager.renderDebug(debugOverlay);
     	
-    	//Enqueues MizuEngine's debug.
-    	debugQ.offer("");
-    	debugQ.offer("MizuEngine debug");
-    	debugQ.offer("Mouse Click Held: " + MouseManager.getClickerHeld());
-    	debugQ.offer("Mouse Dragging: " + MouseManager.getDragging());
-    	debugQ.offer("Mouse Delta X: " + MouseManager.getDeltas().x);
-    	debugQ.offer("Mouse Delta Y: " + MouseManager.getDeltas().y);
-    	debugQ.offer("MouseHidden: " + MouseManager.getHidden());
-    	debugQ.offer("MouseLook: " + MouseManager.getMouseLook());
-    	debugQ.offer("JailedCursor: " + MouseManager.getJailedCursor());
-    	debugQ.offer("Anti Aliasing: " + antiAliasing);
-    	debugQ.offer("Mouse X: " + MouseManager.getCoordinates().x);
-    	debugQ.offer("Mouse Y: " + MouseManager.getCoordinates().y);
-    	debugQ.offer("FPS: " + FPS);
+    	//Adds MizuEngine's debug.
+    	debugOverlay.add("");
+    	debugOverlay.add("MizuEngine debug");
+    	debugOverlay.add("Mouse Click Held: ", MouseManager.getClickerHeld());
+    	debugOverlay.add("Mouse Dragging: ", MouseManager.getDragging());
+    	debugOverlay.add("Mouse Delta X: ", MouseManager.getDeltas().x);
+    	debugOverlay.add("Mouse Delta Y: ", MouseManager.getDeltas().y);
+    	debugOverlay.add("Mouse Wheel: ", MouseManager.getWheelRotation());
+    	debugOverlay.add("MouseHidden: ", MouseManager.getHidden());
+    	debugOverlay.add("MouseLook: ", MouseManager.getMouseLook());
+    	debugOverlay.add("JailedCursor: ", MouseManager.getJailedCursor());
+    	debugOverlay.add("Anti Aliasing: ", antiAliasing);
+    	debugOverlay.add("Mouse X: ", MouseManager.getCoordinates().x);
+    	debugOverlay.add("Mouse Y: ", MouseManager.getCoordinates().y);
+    	debugOverlay.add("FPS: ", FPS);
+    	debugOverlay.add("Image Cache KB: ", ImageManager.getUsedBytes() / 1024);
+    	debugOverlay.add("Image Hits: ", ImageManager.getHits());
+    	debugOverlay.add("Image Misses: ", ImageManager.getMisses());
+    	debugOverlay.add("Image Evictions: ", ImageManager.getEvictions());
+    	debugOverlay.add("Audio Commands Waiting: ", AudioCommandQueue.getDepth());
+    	debugOverlay.add("Audio Commands Max: ", AudioCommandQueue.getMaxDepth());
+    	debugOverlay.add("Audio Commands Dropped: ", AudioCommandQueue.getDropped());
+    	debugOverlay.add("Input To Show us p50: ", InputLatency.getArrivalToShow().getMedian() / 1000);
+    	debugOverlay.add("Input To Show us p99: ", InputLatency.getArrivalToShow().getPercentile(0.99) / 1000);
+    	debugOverlay.add("Event To Show us p99: ", InputLatency.getEventToShow().getPercentile(0.99) / 1000);
     	
-    	//Renders which keys are currently being held.
-        String[] keyNames = KeyboardManager.getKeysPressed();
-        for (int j = 0; j < keyNames.length; j++)
+    	//Adds which keys are currently being held.
+        for (int key = KeyboardManager.nextKeyHeld(0); key >= 0; key = KeyboardManager.nextKeyHeld(key + 1))
         {
-            debugQ.offer("Key Pressed: " + keyNames[j]);
+            debugOverlay.add("Key Pressed: ", KeyboardManager.getKeyName(key));
         }
-    	
+    }
+    
+    //This method draws the debug lines collected when the frame was published.
+    private void debugRender (Graphics2D g2d)
+    {
     	//Draws a transparent grey debug background.
         g2d.setColor(debugBackgroundColor);
         g2d.fillRect(DEBUG_SPACING_X / 2, 0, DEBUG_WIDTH, CANVAS_HEIGHT);
@@ -301,11 +660,8 @@ public class MizuEngine extends Canvas
         //Sets color to white.
         g2d.setColor(Color.white);
     	
-        //Unloads debugQ and renders to screen.
-    	for (int i = 1; debugQ.peek() != null; i++)
-    	{
-    		g2d.drawString(debugQ.poll(), DEBUG_SPACING_X, DEBUG_SPACING_Y * i);
-    	}
+        //Renders debug lines to screen.
+        debugOverlay.render(g2d, DEBUG_SPACING_X, DEBUG_SPACING_Y, DEBUG_SPACING_Y);
     }
     
     //This method saves relevant data and shuts down the program.
@@ -314,11 +670,26 @@ public class MizuEngine extends Canvas
         //Ends the game loops
         isRunning = false;
     	
+        //Lets the render thread finish its frame.
+        if (renderThread != null)
+        {
+        	renderThread.stop();
+        }
+        
         //The currentScene runs its stop processes.
         SceneManager.stop();
         
         //The audioManager stops all audio
         AudioManager.stopAll();
+        //and runs every audio command still waiting.
+        AudioCommandQueue.stop();
+        //Stops music, and closes the mixer's line if it has one.
+        AudioManager.stopMusic(0);
+        AudioMixer.stop();
+        
+        //Drops input that was never drained, and closes any input log.
+        InputEventQueue.clear();
+        InputRecorder.stop();
         
         //Resets KeyboardManager.
         KeyboardManager.reset();
@@ -330,7 +701,16 @@ public class MizuEngine extends Canvas
         FileManager.reset();
         
         //Resets DisplayManager.
-        DisplayManager.reset();
+        if (!headless)
+        {
+        	DisplayManager.reset();
+        }
+        
+        //Reports throughput for replays and soak tests.
+        if (printTimings)
+        {
+        	printThroughput();
+        }
         
         //Nullifies mizuEngine.
         mizuEngine = null;
@@ -342,17 +722,34 @@ public class MizuEngine extends Canvas
         System.exit(0);
     }
     
+    //Returns the Graphics2D the next frame is drawn to.
+    private Graphics2D getDrawGraphics ()
+    {
+    	if (headless)
+    	{
+    		return offscreenImage.createGraphics();
+    	}
+    	return (Graphics2D)bufferStrategy.getDrawGraphics();
+    }
+    
     //This method pageFlips the BufferStrategy
     private void flipPage (Graphics2D g2d)
     {
         //Disposes of Graphics2D object.
         g2d.dispose();
+        //Offscreen image needs no flip.
+        if (headless)
+        	return;
         //Show if contents not lost.
         if (!bufferStrategy.contentsLost())
         	bufferStrategy.show();
         //Otherwise refresh.
         else
         	refreshBufferStrategy();
+        
+        //Buffers that were restored hold nothing worth keeping.
+        if (bufferStrategy.contentsRestored())
+        	DirtyRegions.markAllDirty();
     }
     
     //This method clears the graphics2D
@@ -364,25 +761,33 @@ public class MizuEngine extends Canvas
     }
     
     //This method calculatesFPS.
-    private void calculateFPS (long elapsedTime)
+    private void calculateFPS (long frameTime)
     {
         //Adds one to FPS
         FPSCounter++;
-        second += elapsedTime;
+        second += frameTime;
         //Calculates FPS
-        if ((int)(second / 1000) >= 1)
+        if (second >= 1000000000L)
         {
             FPS = FPSCounter;
             FPSCounter = 0;
-            second -= 1000;
+            second -= 1000000000L;
         }
     }
     
+    //Registers an engine action bound to key.
+    private static int registerAction (String name, int key)
+    {
+        int action = InputActions.register(name);
+        InputActions.bindKey(action, key);
+        return action;
+    }
+    
     //Updates Function keys.
     private void updateToggles ()
     {
     	//F1 toggles debug rendering.
-        if (KeyboardManager.wasPressed(KeyEvent.VK_F1))
+        if (InputActions.wasPressed(debugAction))
         {
         	if (debug)
         	{
@@ -393,8 +798,9 @@ public class MizuEngine extends Canvas
         		setDebug(true);
         	}
         }
+        //F2 to F5 need a window, so they do nothing headless, like while replaying.
         //F2 toggles hidden cursor.
-        if (KeyboardManager.wasPressed(KeyEvent.VK_F2))
+        if (!headless && InputActions.wasPressed(hideCursorAction))
         {
         	if (MouseManager.getHidden())
         	{
@@ -406,7 +812,7 @@ public class MizuEngine extends Canvas
         	}
         }
         //F3 toggles mouse look.
-        if (KeyboardManager.wasPressed(KeyEvent.VK_F3))
+        if (!headless && InputActions.wasPressed(mouseLookAction))
         {
         	if (MouseManager.getMouseLook())
         	{
@@ -418,7 +824,7 @@ public class MizuEngine extends Canvas
         	}
         }
         //F4 toggles jailed cursor.
-        if (KeyboardManager.wasPressed(KeyEvent.VK_F4))
+        if (!headless && InputActions.wasPressed(jailedCursorAction))
         {
         	if (MouseManager.getJailedCursor())
         	{
@@ -430,8 +836,13 @@ public class MizuEngine extends Canvas
         	}
         }
         //F5 toggles full screen mode.
-        if (KeyboardManager.wasPressed(KeyEvent.VK_F5))
+        if (!headless && InputActions.wasPressed(fullScreenAction))
         {
+        	//The render thread must be done with the old BufferStrategy first.
+        	if (renderThread != null)
+        	{
+        		renderThread.waitForIdle();
+        	}
         	if (DisplayManager.getFullScreen())
         	{
         		DisplayManager.displayWindowed();
@@ -441,8 +852,19 @@ public class MizuEngine extends Canvas
         		DisplayManager.displayFullScreen();
         	}
         }
+        //F7 toggles the profiler overlay.
+        if (InputActions.wasPressed(profilerAction))
+        {
+        	setProfilerOverlay(!profilerOverlay);
+        }
+        //F8 resets the profiler.
+        if (InputActions.wasPressed(resetProfilerAction))
+        {
+        	FrameProfiler.reset();
+        	InputLatency.reset();
+        }
         //F6 toggles anti aliasing.
-        if (KeyboardManager.wasPressed(KeyEvent.VK_F6))
+        if (InputActions.wasPressed(antiAliasingAction))
         {
         	if (antiAliasing)
         	{
@@ -455,20 +877,149 @@ public class MizuEngine extends Canvas
         }
     }	
     
+    //Prints how many updates and frames ran per second.
+    private void printThroughput ()
+    {
+    	//Time since the gameloop started.
+    	double seconds = (System.nanoTime() - startTime) / 1000000000.0;
+    	
+    	System.out.println("Updates: " + updateCount + " (" + (int)(updateCount / seconds) + " per second)");
+    	System.out.println("Frames: " + frameCount + " (" + (int)(frameCount / seconds) + " per second)");
+    	
+    	//Reports phase timings in microseconds.
+    	for (int i = 0; i < FrameProfiler.PHASES; i++)
+    	{
+    		System.out.println(FrameProfiler.getPhaseName(i) + " us p50: " + FrameProfiler.getMedian(i) / 1000 +
+    						   " p99: " + FrameProfiler.get99thPercentile(i) / 1000 + " max: " + FrameProfiler.getMax(i) / 1000);
+    	}
+    	
+    	//Reports input latency if any input was shown.
+    	printLatency("Input To Show", InputLatency.getArrivalToShow());
+    	printLatency("Event To Show", InputLatency.getEventToShow());
+    }
+    
+    //Prints a latency histogram in microseconds, if it has counted anything.
+    private void printLatency (String name, LatencyHistogram histogram)
+    {
+    	if (histogram.getCount() > 0)
+    	{
+    		System.out.println(name + " us p50: " + histogram.getMedian() / 1000 + " p99: " +
+    						   histogram.getPercentile(0.99) / 1000 + " max: " + histogram.getMax() / 1000);
+    	}
+    }
+    
     //This method changes the JFrame title.
     public void setTitle (String title)
     {
-    	DisplayManager.setTitle(title);
+    	//No JFrame when headless.
+    	if (!headless)
+    	{
+    		DisplayManager.setTitle(title);
+    	}
     }
     //Sets debug.
     public void setDebug (boolean b)
     {
         debug = b;
+        //Redraws what the overlay covered.
+        DirtyRegions.markAllDirty();
     }
-    //Sets sleepTime.
+    //Sets profiler overlay.
+    public void setProfilerOverlay (boolean b)
+    {
+    	profilerOverlay = b;
+        //Redraws what the overlay covered.
+        DirtyRegions.markAllDirty();
+    }
+    //Turns dirty region rendering on or off.
+    public void setDirtyRendering (boolean b)
+    {
+    	dirtyRendering = b;
+    	DirtyRegions.markAllDirty();
+    }
+    //Sets how many milliseconds each frame should take.
     public void setSleep (int milli)
     {
-        sleepTime = milli;
+        frameLimiter.setFrameTime(milli * 1000000L);
+    }
+    //Sets the target frame rate. 0 runs uncapped.
+    public void setTargetFPS (int fps)
+    {
+    	frameLimiter.setTargetFPS(fps);
+    }
+    //Turns fixed timestep updates on or off.
+    public void setFixedTimestep (boolean b)
+    {
+    	fixedTimestep = b;
+    }
+    //Turns headless mode on or off. Must be set before run.
+    public void setHeadless (boolean b)
+    {
+    	if (!isRunning)
+    	{
+    		headless = b || GraphicsEnvironment.isHeadless();
+    	}
+    }
+    //Records every update's input and elapsed time to the file at path. Must be set before run.
+    public void setRecording (String path)
+    {
+    	if (!isRunning)
+    	{
+    		recordingPath = path;
+    	}
+    }
+    //Replays the input log at path headless and uncapped, then shuts down and prints timings. Must be set before run.
+    public void setReplay (String path)
+    {
+    	if (!isRunning)
+    	{
+    		replayPath = path;
+    		setHeadless(true);
+    		setTargetFPS(0);
+    		printTimings = true;
+    	}
+    }
+    //Prints updates, frames and phase timings on shut down, for benchmarks and soak tests.
+    public void setPrintTimings (boolean b)
+    {
+    	printTimings = b;
+    }
+    //Turns rendering in headless mode on or off.
+    public void setHeadlessRendering (boolean b)
+    {
+    	headlessRendering = b;
+    }
+    //Returns true if running headless.
+    public boolean getHeadless ()
+    {
+    	return headless;
+    }
+    //Returns the image headless frames are rendered to.
+    public BufferedImage getOffscreenImage ()
+    {
+    	return offscreenImage;
+    }
+    //Returns how many updates have run.
+    public long getUpdateCount ()
+    {
+    	return updateCount;
+    }
+    //Returns how many frames have been rendered.
+    public long getFrameCount ()
+    {
+    	return frameCount;
+    }
+    //Turns rendering on a separate thread on or off.
+    public void setPipelined (boolean b)
+    {
+    	pipelined = b;
+    }
+    //Sets how many fixed updates run per second.
+    public void setTickRate (int ticksPerSecond)
+    {
+    	tickRate = Math.max(1, ticksPerSecond);
+    	tickTime = 1000000000L / tickRate;
+    	tickCount = 0;
     }
     //Sets anti aliasing.
     public void setAntiAliasing (boolean b)
@@ -486,6 +1037,8 @@ public class MizuEngine extends Canvas
         //Creates Buffer Strategy.
         createBufferStrategy(2);
         bufferStrategy = this.getBufferStrategy();
+        //New buffers start empty.
+        DirtyRegions.markAllDirty();
     }
     
     //This is the main method.
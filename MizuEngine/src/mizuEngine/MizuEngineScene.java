@@ -11,15 +11,16 @@
 package mizuEngine;
 
 import java.awt.Image;
+import javax.sound.sampled.Clip;
 import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
-import java.util.Queue;
 
 public class MizuEngineScene extends Scene
 {
     //MizuEngineScene Variables
     private Scene nextScene;
-    private Image mizuEngineLogo;
+    private Asset<Image> mizuEngineLogo;
+    private Asset<Clip> mizuPour;
     private int timeDisplayed;
     private final int DISPLAY_TIME = 4;
 
@@ -35,9 +36,9 @@ public class MizuEngineScene extends Scene
     public void load ()
     {
     	//Loads MizuEngine logo.
-        mizuEngineLogo = ImageManager.loadImage("mizuEngine/mizuEngineLogo.png");
+        mizuEngineLogo = acquireImage("mizuEngine/mizuEngineLogo.png");
         //Loads MizuEngine audio.
-        AudioManager.load("mizuEngine/mizuPour.wav");
+        mizuPour = acquireSound("mizuEngine/mizuPour.wav");
     }
     
     //Scene initializes
@@ -50,7 +51,7 @@ public class MizuEngineScene extends Scene
     public void start ()
     {
     	//Plays opening audio.
-        AudioManager.play("mizuEngine/mizuPour.wav");
+        AudioManager.play(mizuPour.getPath());
     }
     
     //Scene finishes itself and then ends.
@@ -58,10 +59,7 @@ public class MizuEngineScene extends Scene
     {
         //Stops all audio currently playing.
         AudioManager.stopAll(); //("sounds/mizuEngine/mizuPour.wav");
-        //Frees Unneeded audio from AudioManager
-        AudioManager.unload("sounds/mizuEngine/mizuPour.wav");
-        //Frees Unneeded images from ImageManager
-        ImageManager.unload("images/mizuEngine/mizuEngineLogo.png");
+        //Logo and audio are released by SceneManager.
     }
     
     //Scene updates using elapsedTime
@@ -90,18 +88,19 @@ public class MizuEngineScene extends Scene
     //Scene renders to Graphics2D object.
     public void render (Graphics2D g2d)
     {
-    	//Draws logo centered.
-        g2d.drawImage(mizuEngineLogo, -(mizuEngineLogo.getWidth(null) - MizuEngine.getMizuEngine().getWidth()) / 2,
-				  					  -(mizuEngineLogo.getHeight(null) - MizuEngine.getMizuEngine().getHeight()) / 2, null);
+    	//Queues logo centered.
+        Image logo = mizuEngineLogo.get();
+        RenderQueue.draw(logo, -(logo.getWidth(null) - MizuEngine.getMizuEngine().getWidth()) / 2,
+				  			   -(logo.getHeight(null) - MizuEngine.getMizuEngine().getHeight()) / 2, 0, 0);
     }
     
     //Debug renders to Graphics2D object.
-    public void renderDebug (Queue<String> debugQ)
+    public void renderDebug (DebugOverlay overlay)
     {
         //Renders MizuEngineScene debug.
-        debugQ.offer("MizuEngineScene debug");
-        debugQ.offer("Test: " + 123);
-        debugQ.offer("Test2: " + 1234);
+        overlay.add("MizuEngineScene debug");
+        overlay.add("Test: ", 123);
+        overlay.add("Test2: ", 1234);
     }
     
     //This is where changeScene() calls are made.
@@ -12,6 +12,14 @@
 | This class will update the current mouse location and perform action  |
 | events unless it has been turned off.                                 |
 |																		|
+| Listeners push events to InputEventQueue. Mouse states and Points are |
+| only changed on the game thread as the queue drains, so they never    |
+| change partway through a frame.                                       |
+|																		|
+| Mouselook adds up every motion event into the update's deltas and     |
+| recenters the cursor at most once a frame, after input is drained, so |
+| aim does not depend on frame rate.                                    |
+|																		|
 | Notes: Mouselook does not work using a Synergy based mouse. Jailed	|
 | cursor still has issues. I still need to find a non buggy way to keep |
 | cursor bounded.														|
@@ -23,6 +31,7 @@ import java.awt.Robot;
 import java.awt.Point;
 import java.awt.Cursor;
 import java.awt.Toolkit;
+import java.awt.GraphicsEnvironment;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseWheelEvent;
@@ -49,6 +58,10 @@ public class MouseManager implements MouseListener, MouseWheelListener, MouseMot
     //Booleans for mouse clicker states.
     private static boolean clickerClicked;
     private static boolean clickerHeld;
+    //Bit masks of mouse button states, one bit per button number.
+    private static int buttonsHeld;
+    private static int buttonsPressed;
+    private static int buttonsReleased;
     //If true, cursor locked within frame.
     private static boolean jailedCursor;
     //If true, mouse look becomes active.
@@ -60,8 +73,19 @@ public class MouseManager implements MouseListener, MouseWheelListener, MouseMot
     
     //Mouse coordinates in Point form.
     private static Point coordinates;
-    //Mouse deltas in Point form.
+    //Mouse deltas in Point form, summed over every motion since the last update.
     private static Point deltas;
+    //Where motion is measured from, the last position or the center after recentering.
+    private static int lastX;
+    private static int lastY;
+    //True if the cursor moved since it was last recentered.
+    private static boolean moved;
+    //True until the move the Robot made by recentering is applied, and where it lands.
+    private static boolean warping;
+    private static int warpX;
+    private static int warpY;
+    //Wheel notches since the last update, negative away from the user.
+    private static int wheelRotation;
     //Point used for centering.
     private static Point center;
     //Robot used for recentering.
@@ -84,15 +108,27 @@ public class MouseManager implements MouseListener, MouseWheelListener, MouseMot
         //Cursor visible by default.
         hidden = false;
         
+        //Instantiates Points
+        coordinates = new Point();
+        deltas = new Point();
+        center = new Point();
+        lastX = 0;
+        lastY = 0;
+        moved = false;
+        warping = false;
+        wheelRotation = 0;
+        
+        //Without a display there is no cursor to change or move.
+        if (GraphicsEnvironment.isHeadless())
+        {
+        	return;
+        }
+        
         //Creates a blank image to be used as blank cursor.
         BufferedImage blankImage = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
         //Instantiates the transparent cursor.
         transparentCursor = makeCursor(blankImage);
         
-        //Instantiates Points
-        coordinates = new Point();
-        deltas = new Point();
-        center = new Point();
         //Instantiates robot
         try
         {
@@ -123,63 +159,117 @@ public class MouseManager implements MouseListener, MouseWheelListener, MouseMot
     {
     	//Reset clicked boolean.
         clickerClicked = false;
-        //Update mouseLook deltas.
-        if (deltas.x > 0)
-            deltas.x -= 1;
-        if (deltas.x < 0)
-            deltas.x += 1;
-        if (deltas.y > 0)
-            deltas.y -= 1;
-        if (deltas.y < 0)
-            deltas.y += 1;
+        buttonsPressed = 0;
+        buttonsReleased = 0;
+        //Motion and scrolling start over each update.
+        deltas.x = 0;
+        deltas.y = 0;
+        wheelRotation = 0;
+    }
+    
+    //Moves the cursor back to the center if mouselook moved it. Called once per frame on the game thread.
+    protected static void recenter ()
+    {
+        if (!mouseLook || !moved || robot == null)
+            return;
+        
+        recenterMouse();
+        //Motion still queued from before the move is measured as usual. The Robot's
+        //own move arrives after it, and is skipped by where it lands.
+        warping = true;
+        warpX = MizuEngine.getMizuEngine().getWidth() / 2;
+        warpY = MizuEngine.getMizuEngine().getHeight() / 2;
+        moved = false;
     }
     
     //Event Listeners for mouse motion.
     public void mouseMoved (MouseEvent e)
     {
-        //Recenters mouse if mouseLook true.
-        if (mouseLook)
-        {
-            //Sets deltas and recenter mouse.
-            deltas.x = (coordinates.x - e.getX());
-            deltas.y = (coordinates.y - e.getY());
-            recenterMouse();
-        }
-        
-        //Updates coordinates.
-        coordinates.x = e.getX();
-        coordinates.y = e.getY();
-        
-        
+        InputEventQueue.push(InputEventQueue.MOUSE_MOVED, 0, e.getX(), e.getY(), e.getWhen());
     }
     public void mouseDragged (MouseEvent e)
     {
-        //Cursor is being dragged
-        dragging = true;
-        //Updates coordinates.
-        mouseMoved(e);
+        InputEventQueue.push(InputEventQueue.MOUSE_DRAGGED, 0, e.getX(), e.getY(), e.getWhen());
     }
     public void mouseWheelMoved (MouseWheelEvent e)
     {
-        //Scrolling actions.
+        InputEventQueue.push(InputEventQueue.MOUSE_WHEEL, e.getWheelRotation(), e.getX(), e.getY(), e.getWhen());
     }
     
     //Listener for mouse clicker depression.
     public void mousePressed (MouseEvent e)
     {
-        clickerHeld = true;
-        //clickerClicked = true;
+        InputEventQueue.push(InputEventQueue.MOUSE_PRESSED, e.getButton(), e.getX(), e.getY(), e.getWhen());
     }
     
     //Listener for mouse clicker release.
     public void mouseReleased (MouseEvent e)
     {
-        //Clicker is not longer held.
-        clickerHeld = false;
-        //Cursor is not being dragged.
-        dragging = false;
-        //Clicker completed a click.
-        clickerClicked = true;
+        InputEventQueue.push(InputEventQueue.MOUSE_RELEASED, e.getButton(), e.getX(), e.getY(), e.getWhen());
+    }
+    
+    //Applies a mouse event from InputEventQueue. Called on the game thread.
+    protected static void apply (int type, int code, int x, int y)
+    {
+        switch (type)
+        {
+            case InputEventQueue.MOUSE_DRAGGED:
+                //Cursor is being dragged
+                dragging = true;
+                //Updates coordinates like a move.
+                move(x, y);
+                break;
+            case InputEventQueue.MOUSE_MOVED:
+                move(x, y);
+                break;
+            case InputEventQueue.MOUSE_PRESSED:
+                clickerHeld = true;
+                buttonsHeld |= 1 << (code & 31);
+                buttonsPressed |= 1 << (code & 31);
+                break;
+            case InputEventQueue.MOUSE_RELEASED:
+                buttonsHeld &= ~(1 << (code & 31));
+                buttonsReleased |= 1 << (code & 31);
+                //Clicker is not longer held.
+                clickerHeld = false;
+                //Cursor is not being dragged.
+                dragging = false;
+                //Clicker completed a click.
+                clickerClicked = true;
+                break;
+            case InputEventQueue.MOUSE_WHEEL:
+                //Adds up scrolling.
+                wheelRotation += code;
+                break;
+            case InputEventQueue.MOUSE_ENTERED:
+                outsideFrame = false;
+                break;
+            case InputEventQueue.MOUSE_EXITED:
+                outsideFrame = true;
+                break;
+        }
+    }
+    
+    //Moves the cursor to x, y, adding the motion to deltas in mouselook.
+    private static void move (int x, int y)
+    {
+        if (warping && x == warpX && y == warpY)
+        {
+            //The Robot's move only resets where motion is measured from.
+            warping = false;
+        }
+        else if (mouseLook)
+        {
+            //Adds to deltas, so no motion in the frame is lost.
+            deltas.x += lastX - x;
+            deltas.y += lastY - y;
+            moved |= x != lastX || y != lastY;
+        }
+        lastX = x;
+        lastY = y;
+        //Updates coordinates.
+        coordinates.x = x;
+        coordinates.y = y;
     }
     
     //Listener for mouse clicked.
@@ -192,7 +282,7 @@ public class MouseManager implements MouseListener, MouseWheelListener, MouseMot
     public void mouseEntered (MouseEvent e)
     {
         refreshCenterPoint();
-        outsideFrame = false;
+        InputEventQueue.push(InputEventQueue.MOUSE_ENTERED, 0, e.getX(), e.getY(), e.getWhen());
     }
     
     //Listener for mouse exiting window.
@@ -229,7 +319,7 @@ public class MouseManager implements MouseListener, MouseWheelListener, MouseMot
         }
         */
     	
-        outsideFrame = true;
+        InputEventQueue.push(InputEventQueue.MOUSE_EXITED, 0, e.getX(), e.getY(), e.getWhen());
     }
     
     //Getters.
@@ -241,6 +331,10 @@ public class MouseManager implements MouseListener, MouseWheelListener, MouseMot
     {
         return deltas;
     }
+    public static int getWheelRotation ()
+    {
+        return wheelRotation;
+    }
     public static boolean getOutsideFrame ()
     {
         return outsideFrame;
@@ -253,6 +347,21 @@ public class MouseManager implements MouseListener, MouseWheelListener, MouseMot
     {
         return clickerHeld;
     }
+    //Returns if button, like MouseEvent.BUTTON1, is held.
+    public static boolean isButtonHeld (int button)
+    {
+        return (buttonsHeld & (1 << (button & 31))) != 0;
+    }
+    //Returns if button was pressed this frame.
+    public static boolean wasButtonPressed (int button)
+    {
+        return (buttonsPressed & (1 << (button & 31))) != 0;
+    }
+    //Returns if button was released this frame.
+    public static boolean wasButtonReleased (int button)
+    {
+        return (buttonsReleased & (1 << (button & 31))) != 0;
+    }
     public static boolean getJailedCursor ()
     {
         return jailedCursor;
@@ -273,12 +382,18 @@ public class MouseManager implements MouseListener, MouseWheelListener, MouseMot
     //Recenters cursor.
     private static void recenterMouse ()
     {
+    	//No robot when headless.
+    	if (robot == null)
+    		return;
         robot.mouseMove(center.x, center.y);
     }
     
     //Moves cursor.
     public static void moveMouse (int x, int y)
     {
+    	//No robot when headless.
+    	if (robot == null)
+    		return;
     	//Gets Point indicating the location of MizuENgine on the screen.
         Point canvasLocation = DisplayManager.getFrame().getLocationOnScreen();
         //Uses robot to move cursor relative to that point.
@@ -288,6 +403,9 @@ public class MouseManager implements MouseListener, MouseWheelListener, MouseMot
     //Gets Point center of JFrame.
     private static void refreshCenterPoint ()
     {
+    	//Has no location unless it is on screen.
+    	if (!MizuEngine.getMizuEngine().isShowing())
+    		return;
     	//Finds the location of the Panel within desktop.
         Point canvasLocation = MizuEngine.getMizuEngine().getLocationOnScreen();
         //Uses that to find the center location of the MizuEngine.
@@ -342,15 +460,55 @@ public class MouseManager implements MouseListener, MouseWheelListener, MouseMot
         jailedCursor = b;
     }
     
+    //Values in a state written by writeState.
+    protected static final int STATE_LENGTH = 9;
+    
+    //Writes every mouse state into state, for InputRecorder.
+    protected static void writeState (int[] state)
+    {
+        state[0] = coordinates.x;
+        state[1] = coordinates.y;
+        state[2] = deltas.x;
+        state[3] = deltas.y;
+        state[4] = wheelRotation;
+        state[5] = buttonsHeld;
+        state[6] = buttonsPressed;
+        state[7] = buttonsReleased;
+        state[8] = (clickerClicked ? 1 : 0) | (clickerHeld ? 2 : 0) | (dragging ? 4 : 0) | (outsideFrame ? 8 : 0);
+    }
+    
+    //Sets every mouse state from state, written by writeState.
+    protected static void readState (int[] state)
+    {
+        coordinates.x = state[0];
+        coordinates.y = state[1];
+        deltas.x = state[2];
+        deltas.y = state[3];
+        wheelRotation = state[4];
+        buttonsHeld = state[5];
+        buttonsPressed = state[6];
+        buttonsReleased = state[7];
+        clickerClicked = (state[8] & 1) != 0;
+        clickerHeld = (state[8] & 2) != 0;
+        dragging = (state[8] & 4) != 0;
+        outsideFrame = (state[8] & 8) != 0;
+    }
+    
     //Resets mouseManager.
     protected static void reset ()
     {
         //Resets mouse states to all false.
         clickerClicked = false;
         clickerHeld = false;
+        buttonsHeld = 0;
+        buttonsPressed = 0;
+        buttonsReleased = 0;
         //Resets Points used for mouse look.
         coordinates = new Point(0, 0);
         deltas = new Point(0, 0);
+        moved = false;
+        warping = false;
+        wheelRotation = 0;
         refreshCenterPoint();
         //Default cursor.
         resetCursor();
@@ -0,0 +1,330 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: MusicStream                                                     |
+| Date: 10/18/2026                                                      |
+| Description: This class streams a long sound, like music, into        |
+| AudioMixer. A decoder thread reads the asset a chunk at a time into a |
+| small ring buffer and the mixer thread plays from the other end, so a |
+| track of any length only ever holds the ring in memory. Looping       |
+| reopens the asset while the ring still has audio, so there is no gap. |
+|                                                                       |
+| Notes: The decoder thread only writes writeFrame and the mixer thread |
+| only writes readFrame, so the ring needs no lock.                     |
+=========================================================================
+ */
+package mizuEngine;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.AudioInputStream;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.FileInputStream;
+import java.io.BufferedInputStream;
+
+public class MusicStream implements Runnable
+{
+	//Frames the ring holds, a power of two. 128 KB of 16 bit stereo.
+	private static final int RING_FRAMES = 1 << 15;
+	private static final int RING_MASK = RING_FRAMES - 1;
+	//Bytes decoded at a time.
+	private static final int CHUNK_BYTES = 16384;
+	//How long the decoder waits for room in the ring.
+	private static final long WAIT_MILLIS = 5;
+
+	//Where the asset is.
+	private final String path;
+	private final boolean loop;
+
+	//Left and right samples, one after the other.
+	private final short[] ring;
+	//Frames written and read since the start. Written by one thread each.
+	private volatile long writeFrame;
+	private volatile long readFrame;
+	//Source frames per output frame, set once the format is known.
+	private volatile double step;
+	//How far between readFrame and the next frame the mixer is.
+	private double fraction;
+
+	//Volume and fades.
+	private volatile float volume;
+	private float gain;
+	private volatile float gainTarget;
+	private volatile float gainStep;
+
+	//State.
+	private volatile boolean paused;
+	private volatile boolean decoding;
+	private volatile boolean ended;
+	private volatile boolean stopped;
+	private Thread decoderThread;
+
+	//MusicStream constructor.
+	public MusicStream (String path, boolean loop)
+	{
+		this.path = path;
+		this.loop = loop;
+		ring = new short[RING_FRAMES * 2];
+		writeFrame = 0;
+		readFrame = 0;
+		step = 0;
+		fraction = 0;
+		volume = 1f;
+		gain = 1f;
+		gainTarget = 1f;
+		gainStep = 0;
+		paused = false;
+		decoding = false;
+		ended = false;
+		stopped = false;
+	}
+
+	//Starts decoding.
+	public void start ()
+	{
+		decoding = true;
+		decoderThread = new Thread(this, "MizuEngine Music " + path);
+		//Decoder never keeps the game from shutting down.
+		decoderThread.setDaemon(true);
+		decoderThread.start();
+	}
+
+	//Stops decoding. The mixer drops the stream on its next block.
+	public void stop ()
+	{
+		decoding = false;
+		stopped = true;
+	}
+
+	//Decodes into the ring until the end, looping if asked.
+	public void run ()
+	{
+		byte[] chunk = new byte[CHUNK_BYTES];
+		boolean first = true;
+
+		while (decoding)
+		{
+			AudioInputStream audioInputStream = open();
+			if (audioInputStream == null)
+			{
+				break;
+			}
+
+			long startFrame = writeFrame;
+			try
+			{
+				AudioFormat format = audioInputStream.getFormat();
+				int channels = format.getChannels();
+				int frameBytes = channels * 2;
+				step = format.getSampleRate() / AudioMixer.OUTPUT_RATE;
+
+				//Decodes chunk by chunk, keeping partial frames for the next read.
+				int kept = 0;
+				for (int read = audioInputStream.read(chunk, kept, chunk.length - kept); read >= 0 && decoding;
+					 read = audioInputStream.read(chunk, kept, chunk.length - kept))
+				{
+					int bytes = kept + read;
+					int frames = bytes / frameBytes;
+					write(chunk, frames, channels);
+
+					kept = bytes - frames * frameBytes;
+					System.arraycopy(chunk, frames * frameBytes, chunk, 0, kept);
+				}
+			}
+			catch (IOException e)
+			{
+				System.out.println("Music at \"" + path + "\" could not be read.");
+				break;
+			}
+			finally
+			{
+				try {audioInputStream.close();}
+				catch (IOException e) {}
+			}
+
+			first = false;
+			//Looping an empty sound would never end.
+			if (!loop || writeFrame == startFrame)
+			{
+				break;
+			}
+		}
+
+		if (first)
+		{
+			System.out.println("Music at \"" + path + "\" could not be played.");
+		}
+		decoding = false;
+		ended = true;
+	}
+
+	//Opens the asset as 16 bit little endian. Returns null if it could not be opened.
+	private AudioInputStream open ()
+	{
+		try
+		{
+			//Mounted packs and the class path first, then a plain file.
+			InputStream stream = FileManager.openResource("sounds/" + path);
+			if (stream == null)
+			{
+				File file = new File(path);
+				if (!file.isFile())
+				{
+					return null;
+				}
+				stream = new BufferedInputStream(new FileInputStream(file));
+			}
+
+			AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(stream);
+			AudioFormat format = audioInputStream.getFormat();
+			AudioFormat pcmFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+													format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+			return AudioSystem.getAudioInputStream(pcmFormat, audioInputStream);
+		}
+		catch (Exception e)
+		{
+			return null;
+		}
+	}
+
+	//Writes frames from chunk into the ring, waiting for room.
+	private void write (byte[] chunk, int frames, int channels)
+	{
+		long write = writeFrame;
+		for (int i = 0; i < frames && decoding; i++)
+		{
+			//Waits while the ring is full.
+			while (write - readFrame >= RING_FRAMES && decoding)
+			{
+				writeFrame = write;
+				try
+				{
+					Thread.sleep(WAIT_MILLIS);
+				}
+				catch (InterruptedException e)
+				{
+					decoding = false;
+				}
+			}
+
+			//Keeps the first two channels, doubling mono.
+			int left = i * channels * 2;
+			int right = channels > 1 ? left + 2 : left;
+			int index = (int)(write & RING_MASK) * 2;
+			ring[index] = (short)((chunk[left] & 0xFF) | (chunk[left + 1] << 8));
+			ring[index + 1] = (short)((chunk[right] & 0xFF) | (chunk[right + 1] << 8));
+			write++;
+		}
+		writeFrame = write;
+	}
+
+	//Adds frames of the stream into mixBuffer. Called by the mixer thread.
+	//Returns false once the stream has finished or faded out.
+	protected boolean mix (float[] mixBuffer, int frames)
+	{
+		if (stopped || (ended && writeFrame - readFrame < 2))
+			return false;
+		if (paused)
+			return true;
+
+		long read = readFrame;
+		long available = writeFrame - read;
+		double step = this.step;
+		float volume = this.volume;
+		float target = gainTarget;
+		float gainStep = this.gainStep;
+
+		for (int f = 0; f < frames; f++)
+		{
+			//Runs dry until the decoder catches up, leaving silence.
+			if (available < 2)
+				break;
+
+			//Blends between the two nearest frames.
+			int i = (int)(read & RING_MASK) * 2;
+			int j = (int)((read + 1) & RING_MASK) * 2;
+			float blend = (float)fraction;
+			float left = ring[i] + (ring[j] - ring[i]) * blend;
+			float right = ring[i + 1] + (ring[j + 1] - ring[i + 1]) * blend;
+
+			//Moves the fade along.
+			if (gain < target) gain = Math.min(target, gain + gainStep);
+			else if (gain > target) gain = Math.max(target, gain - gainStep);
+
+			mixBuffer[f * 2] += left * volume * gain;
+			mixBuffer[f * 2 + 1] += right * volume * gain;
+
+			fraction += step;
+			while (fraction >= 1)
+			{
+				fraction -= 1;
+				read++;
+				available--;
+			}
+		}
+		readFrame = read;
+
+		//Faded out for good.
+		if (gain == 0 && target == 0)
+		{
+			stop();
+			return false;
+		}
+		return true;
+	}
+
+	//Fades from silent up to full over millis. Call before it is added to the mixer.
+	public void fadeIn (long millis)
+	{
+		gain = millis > 0 ? 0f : 1f;
+		fadeTo(1f, millis);
+	}
+
+	//Fades to silent over millis, then stops.
+	public void fadeOut (long millis)
+	{
+		fadeTo(0f, millis);
+	}
+
+	//Fades to target over millis.
+	private void fadeTo (float target, long millis)
+	{
+		gainStep = millis > 0 ? 1f / (millis * AudioMixer.OUTPUT_RATE / 1000f) : 1f;
+		gainTarget = target;
+	}
+
+	//Pauses or resumes.
+	public void setPaused (boolean pause)
+	{
+		paused = pause;
+	}
+
+	//Sets volume from 0 to 1.
+	public void setVolume (float volume)
+	{
+		this.volume = Math.max(0f, volume);
+	}
+
+	//Getters.
+	public String getPath ()
+	{
+		return path;
+	}
+	public boolean isPaused ()
+	{
+		return paused;
+	}
+	public boolean isEnded ()
+	{
+		return stopped || (ended && writeFrame - readFrame < 2);
+	}
+	public boolean isFadingOut ()
+	{
+		return gainTarget == 0;
+	}
+}
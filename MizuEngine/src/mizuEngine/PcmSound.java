@@ -0,0 +1,139 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: PcmSound                                                        |
+| Date: 10/18/2026                                                      |
+| Description: This class is a sound decoded into 16 bit stereo samples |
+| for AudioMixer. Every voice playing it reads the same samples, so     |
+| playing a sound never copies or opens anything.                       |
+|                                                                       |
+| Notes: Sounds are resampled to AudioMixer's rate as they are read, so |
+| the mixer copies samples straight through instead of converting.     |
+=========================================================================
+ */
+package mizuEngine;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.AudioInputStream;
+
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class PcmSound
+{
+	//Left and right samples, one after the other.
+	private final short[] samples;
+	//Samples per channel.
+	private final int frames;
+	//Frames per second.
+	private final float sampleRate;
+
+	//PcmSound constructor.
+	public PcmSound (short[] samples, float sampleRate)
+	{
+		this.samples = samples;
+		this.sampleRate = sampleRate;
+		frames = samples.length / 2;
+	}
+
+	//Decodes the sound in stream at AudioMixer's rate. Returns null if it could not be decoded.
+	//Slow for sounds at other rates, so call it off the game thread.
+	public static PcmSound read (InputStream stream)
+	{
+		AudioInputStream audioInputStream = null;
+		try
+		{
+			audioInputStream = AudioSystem.getAudioInputStream(stream);
+			AudioFormat format = audioInputStream.getFormat();
+			int channels = format.getChannels();
+
+			//Has the system convert to 16 bit little endian at the same rate.
+			AudioFormat pcmFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+													channels, channels * 2, format.getSampleRate(), false);
+			audioInputStream = AudioSystem.getAudioInputStream(pcmFormat, audioInputStream);
+
+			//Reads every byte.
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] chunk = new byte[8192];
+			for (int read = audioInputStream.read(chunk); read >= 0; read = audioInputStream.read(chunk))
+			{
+				bytes.write(chunk, 0, read);
+			}
+			byte[] pcm = bytes.toByteArray();
+
+			//Keeps the first two channels, doubling mono.
+			int frames = pcm.length / (channels * 2);
+			short[] samples = new short[frames * 2];
+			for (int i = 0; i < frames; i++)
+			{
+				int left = i * channels * 2;
+				int right = channels > 1 ? left + 2 : left;
+				samples[i * 2] = (short)((pcm[left] & 0xFF) | (pcm[left + 1] << 8));
+				samples[i * 2 + 1] = (short)((pcm[right] & 0xFF) | (pcm[right + 1] << 8));
+			}
+
+			//Converts the rate once, here, instead of on every play.
+			samples = Resampler.resample(samples, format.getSampleRate(), AudioMixer.OUTPUT_RATE);
+			return new PcmSound(samples, AudioMixer.OUTPUT_RATE);
+		}
+		catch (Exception e)
+		{
+			return null;
+		}
+		finally
+		{
+			try {if (audioInputStream != null) audioInputStream.close();}
+			catch (IOException e) {}
+			//Closed too in case no AudioInputStream was made around it.
+			try {stream.close();}
+			catch (IOException e) {}
+		}
+	}
+
+	//Returns the samples as 16 bit little endian bytes, the format of AudioMixer.FORMAT.
+	public byte[] getBytes ()
+	{
+		byte[] bytes = new byte[samples.length * 2];
+		ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().put(samples);
+		return bytes;
+	}
+
+	//Returns the sample rate and samples for DiskCache.
+	protected ByteBuffer write ()
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(4 + samples.length * 2);
+		buffer.putFloat(sampleRate);
+		buffer.asShortBuffer().put(samples);
+		buffer.rewind();
+		return buffer;
+	}
+
+	//Returns the sound write wrote.
+	protected static PcmSound read (ByteBuffer buffer)
+	{
+		float sampleRate = buffer.getFloat();
+		short[] samples = new short[buffer.remaining() / 2];
+		buffer.asShortBuffer().get(samples);
+		return new PcmSound(samples, sampleRate);
+	}
+
+	//Getters.
+	public short[] getSamples ()
+	{
+		return samples;
+	}
+	public int getFrames ()
+	{
+		return frames;
+	}
+	public float getSampleRate ()
+	{
+		return sampleRate;
+	}
+}
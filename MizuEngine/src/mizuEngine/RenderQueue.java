@@ -0,0 +1,242 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: RenderQueue                                                     |
+| Date: 10/18/2026                                                      |
+| Description: This class collects draw commands from Scene.render      |
+| instead of drawing them straight away. After the Scene renders,       |
+| MizuEngine sorts the commands by layer, z-order and image and draws   |
+| them in one pass. Images drawn together keep Java2D on the same       |
+| source surface, the composite is only changed when alpha changes,     |
+| and commands outside the clip are skipped.                            |
+|                                                                       |
+| Notes: Commands are kept in preallocated arrays that only grow when   |
+| a frame submits more than they hold. Submit from render, not update.  |
+| Layers go from -128 to 127 and z-order from -32768 to 32767.          |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.awt.Image;
+import java.awt.Composite;
+import java.awt.Rectangle;
+import java.awt.Graphics2D;
+import java.awt.AlphaComposite;
+
+import java.util.Arrays;
+
+public class RenderQueue
+{
+	//Allows only one RenderQueue.
+	private static RenderQueue renderQueue;
+
+	//Commands held before the arrays grow.
+	private static final int DEFAULT_CAPACITY = 1024;
+	//Most commands one frame can hold, limited by the bits left for the index.
+	private static final int MAX_CAPACITY = 1 << 24;
+
+	//Command arrays.
+	private static Image[] images;
+	private static int[] xs;
+	private static int[] ys;
+	private static int[] alphas;
+	//Source rectangles. A width of -1 draws the whole image.
+	private static int[] sourceXs;
+	private static int[] sourceYs;
+	private static int[] sourceWidths;
+	private static int[] sourceHeights;
+	//Sort keys with the command index in the low bits.
+	private static long[] keys;
+	//Commands submitted this frame.
+	private static int count;
+
+	//One composite per alpha level so flushing never allocates.
+	private static AlphaComposite[] composites;
+	//Reused clip bounds.
+	private static Rectangle clipBounds;
+
+	//RenderQueue constructor.
+	private RenderQueue ()
+	{
+		setCapacity(DEFAULT_CAPACITY);
+
+		composites = new AlphaComposite[256];
+		for (int i = 0; i < composites.length; i++)
+		{
+			composites[i] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, i / 255f);
+		}
+		clipBounds = new Rectangle();
+	}
+
+	//Returns the renderQueue.
+	public static RenderQueue getRenderQueue ()
+	{
+		//Checks to see if renderQueue is null. If so, it creates one.
+		if (renderQueue == null)
+		{
+			//Makes a single RenderQueue.
+			renderQueue = new RenderQueue();
+		}
+		//Returns the renderQueue.
+		return renderQueue;
+	}
+
+	//Sets how many commands fit before the arrays grow.
+	public static void setCapacity (int capacity)
+	{
+		capacity = Math.max(Math.min(capacity, MAX_CAPACITY), count);
+
+		if (images == null)
+		{
+			images = new Image[capacity];
+			xs = new int[capacity];
+			ys = new int[capacity];
+			alphas = new int[capacity];
+			sourceXs = new int[capacity];
+			sourceYs = new int[capacity];
+			sourceWidths = new int[capacity];
+			sourceHeights = new int[capacity];
+			keys = new long[capacity];
+		}
+		else
+		{
+			images = Arrays.copyOf(images, capacity);
+			xs = Arrays.copyOf(xs, capacity);
+			ys = Arrays.copyOf(ys, capacity);
+			alphas = Arrays.copyOf(alphas, capacity);
+			sourceXs = Arrays.copyOf(sourceXs, capacity);
+			sourceYs = Arrays.copyOf(sourceYs, capacity);
+			sourceWidths = Arrays.copyOf(sourceWidths, capacity);
+			sourceHeights = Arrays.copyOf(sourceHeights, capacity);
+			keys = Arrays.copyOf(keys, capacity);
+		}
+	}
+
+	//Queues image to be drawn at x, y.
+	public static void draw (Image image, int x, int y, int layer, int z)
+	{
+		draw(image, x, y, layer, z, 1f);
+	}
+
+	//Queues image to be drawn at x, y with alpha from 0 to 1.
+	public static void draw (Image image, int x, int y, int layer, int z, float alpha)
+	{
+		draw(image, x, y, -1, 0, 0, 0, layer, z, alpha);
+	}
+
+	//Queues a sprite kept in video memory to be drawn at x, y.
+	public static void draw (AcceleratedImage image, int x, int y, int layer, int z)
+	{
+		draw(image.getImage(), x, y, layer, z, 1f);
+	}
+
+	//Queues a sprite kept in video memory to be drawn at x, y with alpha from 0 to 1.
+	public static void draw (AcceleratedImage image, int x, int y, int layer, int z, float alpha)
+	{
+		draw(image.getImage(), x, y, layer, z, alpha);
+	}
+
+	//Queues an atlas region to be drawn at x, y.
+	public static void draw (AtlasRegion region, int x, int y, int layer, int z)
+	{
+		draw(region, x, y, layer, z, 1f);
+	}
+
+	//Queues an atlas region to be drawn at x, y with alpha from 0 to 1.
+	public static void draw (AtlasRegion region, int x, int y, int layer, int z, float alpha)
+	{
+		draw(region.getSheet(), x, y, region.getX(), region.getY(), region.getWidth(), region.getHeight(), layer, z, alpha);
+	}
+
+	//Queues the source rectangle of image to be drawn at x, y.
+	private static void draw (Image image, int x, int y, int sourceX, int sourceY, int sourceWidth, int sourceHeight, int layer, int z, float alpha)
+	{
+		//Grows if full.
+		if (count == images.length)
+		{
+			if (count == MAX_CAPACITY)
+			{
+				return;
+			}
+			setCapacity(count * 2);
+		}
+
+		int i = count++;
+		images[i] = image;
+		xs[i] = x;
+		ys[i] = y;
+		alphas[i] = Math.max(0, Math.min(255, Math.round(alpha * 255)));
+		sourceXs[i] = sourceX;
+		sourceYs[i] = sourceY;
+		sourceWidths[i] = sourceWidth;
+		sourceHeights[i] = sourceHeight;
+
+		//Sorts by layer, then z-order, then image, then the order submitted.
+		long layerBits = Math.max(-128, Math.min(127, layer));
+		long zBits = Math.max(-32768, Math.min(32767, z)) + 32768;
+		long imageBits = System.identityHashCode(image) & 0xFFFF;
+		keys[i] = (layerBits << 56) | (zBits << 40) | (imageBits << 24) | i;
+	}
+
+	//Draws every queued command in order and empties the queue.
+	protected static void flush (Graphics2D g2d)
+	{
+		if (count == 0)
+			return;
+
+		Arrays.sort(keys, 0, count);
+
+		//Skips anything outside the clip. Without a clip the bounds are left huge.
+		clipBounds.setBounds(-1000000000, -1000000000, 2000000000, 2000000000);
+		Rectangle clip = g2d.getClipBounds(clipBounds);
+
+		Composite original = g2d.getComposite();
+		int currentAlpha = -1;
+
+		for (int k = 0; k < count; k++)
+		{
+			int i = (int)(keys[k] & (MAX_CAPACITY - 1));
+			Image image = images[i];
+			images[i] = null;
+
+			if (image == null || alphas[i] == 0)
+				continue;
+
+			//Size drawn is the source rectangle's, or the whole image's.
+			int width = sourceWidths[i] < 0 ? image.getWidth(null) : sourceWidths[i];
+			int height = sourceWidths[i] < 0 ? image.getHeight(null) : sourceHeights[i];
+
+			if (xs[i] >= clip.x + clip.width || ys[i] >= clip.y + clip.height ||
+				xs[i] + width <= clip.x || ys[i] + height <= clip.y)
+				continue;
+
+			//Changes composite only when alpha changes.
+			if (alphas[i] != currentAlpha)
+			{
+				currentAlpha = alphas[i];
+				g2d.setComposite(currentAlpha == 255 ? original : composites[currentAlpha]);
+			}
+
+			if (sourceWidths[i] < 0)
+			{
+				g2d.drawImage(image, xs[i], ys[i], null);
+			}
+			else
+			{
+				g2d.drawImage(image, xs[i], ys[i], xs[i] + width, ys[i] + height,
+							  sourceXs[i], sourceYs[i], sourceXs[i] + width, sourceYs[i] + height, null);
+			}
+		}
+
+		g2d.setComposite(original);
+		count = 0;
+	}
+
+	//Returns how many commands are queued.
+	public static int getCount ()
+	{
+		return count;
+	}
+}
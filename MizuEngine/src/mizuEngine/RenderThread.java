@@ -0,0 +1,160 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: RenderThread                                                    |
+| Date: 10/18/2026                                                      |
+| Description: This class renders frames on their own thread while the  |
+| gameloop goes on to update the next one. Frames are handed over one   |
+| at a time. Before each hand off the gameloop waits for the previous   |
+| frame to finish, so the Scene can publish its render state while      |
+| nothing is reading it.                                                |
+|                                                                       |
+| Notes: An exception thrown while rendering does not end the thread.   |
+| It is kept and thrown again on the gameloop's thread by the next      |
+| waitForIdle or submit, so the gameloop never waits on a dead thread.  |
+=========================================================================
+ */
+package mizuEngine;
+
+public class RenderThread implements Runnable
+{
+	//Engine that renders the frames.
+	private final MizuEngine mizuEngine;
+
+	//Thread frames are rendered on.
+	private Thread thread;
+
+	//True while the thread should keep rendering.
+	private boolean running;
+	//True while a frame has been handed over but not finished.
+	private boolean busy;
+
+	//Frame handed over.
+	private double alpha;
+	private long frameTime;
+
+	//Exception the last frame threw, not yet thrown on the gameloop's thread.
+	private RuntimeException failure;
+
+	//RenderThread constructor.
+	public RenderThread (MizuEngine mizuEngine)
+	{
+		this.mizuEngine = mizuEngine;
+		running = false;
+		busy = false;
+	}
+
+	//Starts rendering thread.
+	public synchronized void start ()
+	{
+		if (!running)
+		{
+			running = true;
+			thread = new Thread(this, "MizuEngine Render");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	//Finishes the current frame and ends the thread. A failed frame is dropped, not thrown.
+	public synchronized void stop ()
+	{
+		awaitIdle();
+		failure = null;
+		running = false;
+		notifyAll();
+	}
+
+	//Blocks until the last frame handed over has been shown.
+	//Throws whatever the last frame threw while rendering.
+	public synchronized void waitForIdle ()
+	{
+		awaitIdle();
+		rethrow();
+	}
+
+	//Blocks until no frame is being rendered.
+	private void awaitIdle ()
+	{
+		while (busy && running)
+		{
+			try {wait();}
+			catch (InterruptedException ex) {}
+		}
+	}
+
+	//Throws the exception the last frame threw, once.
+	private void rethrow ()
+	{
+		if (failure != null)
+		{
+			RuntimeException e = failure;
+			failure = null;
+			throw e;
+		}
+	}
+
+	//Hands a frame to the thread. Call waitForIdle first.
+	//Throws whatever the last frame threw while rendering.
+	public synchronized void submit (double alpha, long frameTime)
+	{
+		rethrow();
+		this.alpha = alpha;
+		this.frameTime = frameTime;
+		busy = true;
+		notifyAll();
+	}
+
+	//Renders frames as they are handed over.
+	public void run ()
+	{
+		while (true)
+		{
+			double frameAlpha;
+			long frameNanos;
+
+			//Waits for a frame.
+			synchronized (this)
+			{
+				while (!busy && running)
+				{
+					try {wait();}
+					catch (InterruptedException ex) {}
+				}
+				if (!running)
+				{
+					return;
+				}
+				frameAlpha = alpha;
+				frameNanos = frameTime;
+			}
+
+			//Renders outside the lock so the gameloop is never held up by it.
+			RuntimeException thrown = null;
+			try
+			{
+				mizuEngine.renderFrame(frameAlpha, frameNanos);
+			}
+			catch (RuntimeException e)
+			{
+				//Kept for the gameloop, so this thread lives on.
+				thrown = e;
+			}
+			finally
+			{
+				//Frame finished.
+				synchronized (this)
+				{
+					if (thrown != null)
+					{
+						failure = thrown;
+					}
+					busy = false;
+					notifyAll();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: Resampler                                                       |
+| Date: 10/18/2026                                                      |
+| Description: This class changes the sample rate of 16 bit stereo     |
+| samples with a windowed sinc filter. It is slow next to blending two  |
+| frames, so it is run once when a sound loads rather than every play.  |
+|                                                                       |
+| Notes: The sinc is cut off at the lower of the two rates' Nyquist     |
+| frequencies, so downsampling does not alias, and shaped by a Blackman |
+| window. The kernel is read from a table instead of calling sin.       |
+=========================================================================
+ */
+package mizuEngine;
+
+public class Resampler
+{
+	//Zero crossings on each side of the kernel's center.
+	private static final int HALF_WIDTH = 16;
+	//Table entries per zero crossing.
+	private static final int RESOLUTION = 256;
+
+	//Kernel from its center out to HALF_WIDTH, with one entry past the end to blend to.
+	private static final float[] KERNEL = makeKernel();
+
+	//Builds the windowed sinc table.
+	private static float[] makeKernel ()
+	{
+		float[] kernel = new float[HALF_WIDTH * RESOLUTION + 2];
+		kernel[0] = 1f;
+		for (int i = 1; i <= HALF_WIDTH * RESOLUTION; i++)
+		{
+			double x = (double)i / RESOLUTION;
+			double sinc = Math.sin(Math.PI * x) / (Math.PI * x);
+			//Blackman window, falling to zero at HALF_WIDTH.
+			double phase = Math.PI * (x / HALF_WIDTH + 1);
+			double window = 0.42 - 0.5 * Math.cos(phase) + 0.08 * Math.cos(2 * phase);
+			kernel[i] = (float)(sinc * window);
+		}
+		return kernel;
+	}
+
+	//Returns samples, left and right one after the other, converted from fromRate to toRate.
+	public static short[] resample (short[] samples, float fromRate, float toRate)
+	{
+		int frames = samples.length / 2;
+		if (fromRate == toRate || frames == 0)
+		{
+			return samples;
+		}
+
+		double ratio = (double)toRate / fromRate;
+		int outFrames = (int)(frames * ratio);
+		short[] out = new short[outFrames * 2];
+
+		//Downsampling lowers the cutoff, which widens the kernel in source frames.
+		double cutoff = Math.min(1.0, ratio);
+		double width = HALF_WIDTH / cutoff;
+		double scale = cutoff * RESOLUTION;
+
+		for (int o = 0; o < outFrames; o++)
+		{
+			//Where this frame falls between source frames.
+			double center = o / ratio;
+			int first = Math.max(0, (int)Math.ceil(center - width));
+			int last = Math.min(frames - 1, (int)Math.floor(center + width));
+
+			float left = 0;
+			float right = 0;
+			for (int s = first; s <= last; s++)
+			{
+				//Looks the kernel up, blending between table entries.
+				double position = Math.abs(center - s) * scale;
+				int index = (int)position;
+				float blend = (float)(position - index);
+				float weight = KERNEL[index] + (KERNEL[index + 1] - KERNEL[index]) * blend;
+
+				left += samples[s * 2] * weight;
+				right += samples[s * 2 + 1] * weight;
+			}
+
+			out[o * 2] = clamp(left * cutoff);
+			out[o * 2 + 1] = clamp(right * cutoff);
+		}
+		return out;
+	}
+
+	//Rounds sample to 16 bits.
+	private static short clamp (double sample)
+	{
+		long rounded = Math.round(sample);
+		if (rounded > Short.MAX_VALUE) return Short.MAX_VALUE;
+		if (rounded < Short.MIN_VALUE) return Short.MIN_VALUE;
+		return (short)rounded;
+	}
+}
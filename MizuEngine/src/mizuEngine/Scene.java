@@ -12,12 +12,19 @@
 */
 package mizuEngine;
 
+import java.util.List;
 import java.util.Queue;
+import java.util.ArrayList;
+import java.awt.Image;
 import java.awt.Graphics2D;
+import javax.sound.sampled.Clip;
 
 //Abstract class Scene.
 public abstract class Scene
 {
+    //Assets this Scene holds, released when it is changed away from.
+    private final List<Asset<?>> assets = new ArrayList<Asset<?>>();
+    
     //Scene loads any resources it needs.
 	protected abstract void load ();
     //Scene initializes
@@ -30,6 +37,58 @@ public abstract class Scene
     protected abstract void update (long elapsedTime);
     //Scene renders to Graphics2D object.
     protected abstract void render (Graphics2D g2d);
-    //Scene debug renders to Graphics2D object.
-    protected abstract void renderDebug (Queue<String> debugQ);
+    //Scene copies what render reads from what update writes.
+    //Called between update and render while nothing is rendering,
+    //so in pipelined mode render never sees update half done.
+    protected void publish ()
+    {
+    }
+    //Scene renders alpha of the way between its last two fixed updates.
+    protected void render (Graphics2D g2d, double alpha)
+    {
+        render(g2d);
+    }
+    //Scene debug renders by offering lines to debugQ.
+    protected void renderDebug (Queue<String> debugQ)
+    {
+    }
+    //Scene debug renders by adding lines to overlay without allocating.
+    protected void renderDebug (DebugOverlay overlay)
+    {
+        //Falls back to the Queue for Scenes that still use it.
+        Queue<String> debugQ = overlay.getDebugQueue();
+        renderDebug(debugQ);
+        while (debugQ.peek() != null)
+        {
+            overlay.add(debugQ.poll());
+        }
+    }
+    
+    //Returns a handle to the image at imagePath, held until this Scene is changed away from.
+    protected final Asset<Image> acquireImage (String imagePath)
+    {
+        Asset<Image> asset = ImageManager.acquire(imagePath);
+        assets.add(asset);
+        return asset;
+    }
+    //Returns a handle to the clip at clipPath, held until this Scene is changed away from.
+    protected final Asset<Clip> acquireSound (String clipPath)
+    {
+        Asset<Clip> asset = AudioManager.acquire(clipPath);
+        assets.add(asset);
+        return asset;
+    }
+    //Returns the Assets this Scene holds.
+    final List<Asset<?>> getAssets ()
+    {
+        return assets;
+    }
+    //Takes back every Asset, for a Scene reinstated without loading.
+    final void reacquireAssets ()
+    {
+        for (Asset<?> asset : assets)
+        {
+            asset.acquire();
+        }
+    }
 }
@@ -11,15 +11,21 @@
  */
 package mizuEngine;
 
-import java.util.Queue;
 import java.awt.Graphics2D;
 
+import java.util.List;
+import java.util.ArrayList;
+
 public class SceneManager
 {
 
 	//SceneManager variables
 	private static SceneManager sceneManager;
 	private static Scene currentScene;
+	//Scene last published for rendering.
+	private static Scene renderScene;
+	//Assets of Scenes changed away from, released once renderScene no longer draws them.
+	private static final List<Asset<?>> retiredAssets = new ArrayList<Asset<?>>();
 
 	//ImageManager constructor
 	private SceneManager ()
@@ -45,16 +51,27 @@ public class SceneManager
 		currentScene.update(elapsedTime);
 	}
 
-	//Renders current Scene
-	protected static void render (Graphics2D g2d)
+	//Publishes current Scene for rendering.
+	protected static void publish ()
+	{
+		currentScene.publish();
+		renderScene = currentScene;
+		
+		//The old Scene may have been drawing until now.
+		release(retiredAssets);
+		retiredAssets.clear();
+	}
+
+	//Renders published Scene
+	protected static void render (Graphics2D g2d, double alpha)
 	{
-		currentScene.render(g2d);
+		renderScene.render(g2d, alpha);
 	}
 
-	//Renders current Scene
-	protected static void renderDebug (Queue<String> debugQ)
+	//Renders published Scene
+	protected static void renderDebug (DebugOverlay overlay)
 	{
-		currentScene.renderDebug(debugQ);
+		renderScene.renderDebug(overlay);
 	}
 
 
@@ -67,10 +84,15 @@ public class SceneManager
 	//Pass false if you want to reinstate a Scene that has already been initialized.
 	public static void changeScene (Scene newScene, boolean initialize)
 	{
+		Scene oldScene = SceneManager.currentScene;
+		//Outgoing Scene's Assets, released once newScene has taken what it needs.
+		List<Asset<?>> oldAssets = null;
+		
 		//If the there is a currentScene, it is stopped.
-		if (SceneManager.currentScene != null)
+		if (oldScene != null)
 		{
-			SceneManager.currentScene.stop();
+			oldScene.stop();
+			oldAssets = new ArrayList<Asset<?>>(oldScene.getAssets());
 		}
 
 		//Reset KeyboardManager and MouseManager.
@@ -79,20 +101,64 @@ public class SceneManager
 		
 		if (initialize)
 		{
+			//newScene starts over with only what load acquires.
+			newScene.getAssets().clear();
+			
 			//newScene is loaded.
 			newScene.load();
 			newScene.init();
 			newScene.start();
 		}
+		else if (newScene != oldScene)
+		{
+			//newScene takes back what it held when it was changed away from.
+			retiredAssets.removeAll(newScene.getAssets());
+			newScene.reacquireAssets();
+		}
+		else
+		{
+			//Nothing changes hands.
+			oldAssets = null;
+		}
 		
 		//newScene becomes current Scene.
 		SceneManager.currentScene = newScene;
+		
+		//Images preloaded for newScene that it did not acquire can go now.
+		ImageManager.releasePreloaded();
+		
+		//Assets newScene also holds stay loaded. The rest go at the next publish.
+		if (oldAssets != null)
+		{
+			retiredAssets.addAll(oldAssets);
+		}
+		
+		//The new Scene draws everything.
+		DirtyRegions.markAllDirty();
 	}
 
 	//Calls stop method for current Scene.
 	protected static void stop ()
 	{
 		// If currentScene not null.
-		if (currentScene != null) currentScene.stop();
+		if (currentScene != null)
+		{
+			currentScene.stop();
+			release(currentScene.getAssets());
+		}
+		release(retiredAssets);
+		retiredAssets.clear();
+	}
+	
+	//Releases every Asset in assets.
+	private static void release (List<Asset<?>> assets)
+	{
+		if (assets != null)
+		{
+			for (Asset<?> asset : assets)
+			{
+				asset.release();
+			}
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+/*
+=========================================================================
+| Author: Andrew Hammil                                                 |
+| Site: KrystalfoxGames.com                                             |
+|                                                                       |
+| Name: TextureAtlas                                                    |
+| Date: 10/18/2026                                                      |
+| Description: This class packs many small images into one large        |
+| accelerated sheet. It uses a skyline: the top edge of everything      |
+| packed so far, kept as a list of horizontal segments. Each image goes |
+| where it sits lowest on the skyline, leftmost on ties.                |
+|                                                                       |
+| Notes: A pixel of padding is left right and below each image so       |
+| neighbours never bleed into each other when scaled.                   |
+=========================================================================
+ */
+package mizuEngine;
+
+import java.awt.Image;
+import java.awt.Graphics2D;
+import java.awt.AlphaComposite;
+import java.awt.image.BufferedImage;
+
+import java.util.Arrays;
+
+public class TextureAtlas
+{
+	//Space left between packed images.
+	private final int PADDING = 1;
+
+	//Sheet images are packed into.
+	private final Image sheet;
+	private final int SIZE;
+
+	//Skyline segments, left to right.
+	private int[] segmentX;
+	private int[] segmentY;
+	private int[] segmentWidth;
+	private int segments;
+
+	//Pixels packed, for reporting.
+	private long usedArea;
+
+	//TextureAtlas constructor.
+	public TextureAtlas (int size)
+	{
+		SIZE = size;
+		sheet = ImageManager.createAcceleratedImage(size, size);
+
+		//The skyline starts as the flat bottom of the sheet.
+		segmentX = new int[16];
+		segmentY = new int[16];
+		segmentWidth = new int[16];
+		segmentX[0] = 0;
+		segmentY[0] = 0;
+		segmentWidth[0] = size;
+		segments = 1;
+		usedArea = 0;
+	}
+
+	//Packs image into the sheet. Returns null if there is no room.
+	public AtlasRegion pack (BufferedImage image)
+	{
+		int width = image.getWidth() + PADDING;
+		int height = image.getHeight() + PADDING;
+
+		//Finds the lowest, then leftmost, place it fits.
+		int bestSegment = -1;
+		int bestY = Integer.MAX_VALUE;
+		for (int i = 0; i < segments; i++)
+		{
+			int y = fitAt(i, width, height);
+			if (y >= 0 && y < bestY)
+			{
+				bestY = y;
+				bestSegment = i;
+			}
+		}
+
+		if (bestSegment < 0)
+			return null;
+
+		int x = segmentX[bestSegment];
+		raiseSkyline(bestSegment, x, bestY + height, width);
+		usedArea += (long)width * height;
+
+		//Copies the pixels in, replacing the transparent background.
+		Graphics2D g2d = (Graphics2D)sheet.getGraphics();
+		g2d.setComposite(AlphaComposite.Src);
+		g2d.drawImage(image, x, bestY, null);
+		g2d.dispose();
+
+		return new AtlasRegion(sheet, x, bestY, image.getWidth(), image.getHeight());
+	}
+
+	//Returns the y an image would sit at starting on segment i, or -1 if it does not fit.
+	private int fitAt (int i, int width, int height)
+	{
+		int x = segmentX[i];
+		if (x + width > SIZE)
+			return -1;
+
+		//Rests on the highest segment underneath it.
+		int y = 0;
+		int remaining = width;
+		for (int j = i; remaining > 0; j++)
+		{
+			y = Math.max(y, segmentY[j]);
+			if (y + height > SIZE)
+				return -1;
+			remaining -= segmentWidth[j];
+		}
+		return y;
+	}
+
+	//Adds a segment at height y covering x to x + width, trimming what it covers.
+	private void raiseSkyline (int index, int x, int y, int width)
+	{
+		insertSegment(index, x, y, width);
+
+		//Trims or removes segments now underneath the new one.
+		int right = x + width;
+		int i = index + 1;
+		while (i < segments && segmentX[i] < right)
+		{
+			int shrink = right - segmentX[i];
+			if (shrink >= segmentWidth[i])
+			{
+				removeSegment(i);
+			}
+			else
+			{
+				segmentX[i] += shrink;
+				segmentWidth[i] -= shrink;
+				break;
+			}
+		}
+
+		//Merges neighbours of equal height.
+		for (i = 0; i < segments - 1; )
+		{
+			if (segmentY[i] == segmentY[i + 1])
+			{
+				segmentWidth[i] += segmentWidth[i + 1];
+				removeSegment(i + 1);
+			}
+			else
+			{
+				i++;
+			}
+		}
+	}
+
+	//Inserts a segment at index.
+	private void insertSegment (int index, int x, int y, int width)
+	{
+		//Grows if full.
+		if (segments == segmentX.length)
+		{
+			segmentX = Arrays.copyOf(segmentX, segments * 2);
+			segmentY = Arrays.copyOf(segmentY, segments * 2);
+			segmentWidth = Arrays.copyOf(segmentWidth, segments * 2);
+		}
+		System.arraycopy(segmentX, index, segmentX, index + 1, segments - index);
+		System.arraycopy(segmentY, index, segmentY, index + 1, segments - index);
+		System.arraycopy(segmentWidth, index, segmentWidth, index + 1, segments - index);
+		segmentX[index] = x;
+		segmentY[index] = y;
+		segmentWidth[index] = width;
+		segments++;
+	}
+
+	//Removes the segment at index.
+	private void removeSegment (int index)
+	{
+		System.arraycopy(segmentX, index + 1, segmentX, index, segments - index - 1);
+		System.arraycopy(segmentY, index + 1, segmentY, index, segments - index - 1);
+		System.arraycopy(segmentWidth, index + 1, segmentWidth, index, segments - index - 1);
+		segments--;
+	}
+
+	//Returns the sheet.
+	public Image getSheet ()
+	{
+		return sheet;
+	}
+
+	//Returns how much of the sheet is used, from 0 to 1.
+	public double getOccupancy ()
+	{
+		return usedArea / ((double)SIZE * SIZE);
+	}
+}